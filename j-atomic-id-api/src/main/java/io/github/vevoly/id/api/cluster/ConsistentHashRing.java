@@ -0,0 +1,130 @@
+package io.github.vevoly.id.api.cluster;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * <h3>一致性哈希环 (Consistent Hash Ring)</h3>
+ *
+ * <p>
+ * 把 bizTag 哈希空间划分给集群中的各个节点，每个节点在环上放置若干虚拟节点以均衡负载。
+ * 服务端与客户端使用同一实现与同一份成员配置，因此对任意 Tag 的归属判断完全一致；
+ * 增减节点时只有相邻区间的 Tag 会迁移，但各节点的存储互相独立：迁移的 Tag 必须先由新节点接管原节点的 MaxId
+ * (服务端 {@code cluster.handover})，否则会重复发号。服务端默认拒绝以变更后的成员列表启动。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Consistent Hash Ring.</b><br>
+ * Maps each business tag to its owning node. Shared by server and client so both sides
+ * agree on ownership for the same membership. Changing the membership is only safe through the
+ * server-side handover, since every node keeps its own store.
+ * </span>
+ *
+ * @author vevoly
+ */
+public final class ConsistentHashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final Map<String, String> nodes;
+
+    // 排序后的虚拟节点哈希值，与 owners 下标一一对应
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * @param nodes        Key: 节点 ID, Value: 节点地址
+     * @param virtualNodes 每个节点的虚拟节点数
+     */
+    public ConsistentHashRing(Map<String, String> nodes, int virtualNodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            throw new IllegalArgumentException("Cluster nodes must not be empty");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.nodes = Collections.unmodifiableMap(new LinkedHashMap<>(nodes));
+        // TreeMap 去重并排序 (哈希冲突时保留节点 ID 较小者，保证两端一致)
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String nodeId : nodes.keySet()) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.merge(hash(nodeId + "#" + i), nodeId, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new String[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, String> entry : ring.entrySet()) {
+            points[i] = entry.getKey();
+            owners[i] = entry.getValue();
+            i++;
+        }
+    }
+
+    /**
+     * 获取 Tag 的归属节点 ID (环上顺时针第一个虚拟节点)
+     */
+    public String ownerOf(String bizTag) {
+        int idx = Arrays.binarySearch(points, hash(bizTag));
+        if (idx < 0) {
+            idx = -idx - 1;
+        }
+        return owners[idx == points.length ? 0 : idx];
+    }
+
+    /**
+     * 获取节点地址
+     */
+    public String addressOf(String nodeId) {
+        return nodes.get(nodeId);
+    }
+
+    public Map<String, String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 从成员文件读取节点列表 (Properties 格式，每行 {@code nodeId=address})
+     */
+    public static Map<String, String> readNodes(String file) {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+            props.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read cluster nodes file: " + file, e);
+        }
+        Map<String, String> nodes = new TreeMap<>();
+        for (String nodeId : props.stringPropertyNames()) {
+            nodes.put(nodeId.trim(), props.getProperty(nodeId).trim());
+        }
+        return nodes;
+    }
+
+    /**
+     * 64 位 FNV-1a + MurmurHash3 finalizer，跨 JVM 稳定
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -7,4 +7,22 @@ public class IdConstants {
 
     // 默认的号段步长 (如果客户端没传 count)
     public static final int DEFAULT_STEP = 1000;
+
+    // TIME_LEASED 模式：Worker ID 位数 + 序列号位数 (时间戳占其余 41 位)
+    public static final int WORKER_AND_SEQUENCE_BITS = 22;
+
+    // TIME_LEASED 模式：Worker ID 数量上限 (最多 16 位)
+    public static final int MAX_WORKERS = 1 << 16;
+
+    // TIME_LEASED 模式：默认时间戳起点 2024-01-01T00:00:00Z
+    public static final long DEFAULT_EPOCH_MILLIS = 1704067200000L;
+
+    // 订阅模式：SSE 事件名，data 为订阅 ID
+    public static final String PUSH_EVENT_SUBSCRIBED = "subscribed";
+
+    // 订阅模式：SSE 事件名，data 为 PushedSegment JSON
+    public static final String PUSH_EVENT_SEGMENT = "segment";
+
+    // 请求截止时间 Header (epoch 毫秒)，服务端丢弃已过期的请求
+    public static final String DEADLINE_HEADER = "X-Deadline";
 }
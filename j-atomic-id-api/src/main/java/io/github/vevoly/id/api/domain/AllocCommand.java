@@ -31,6 +31,31 @@ import net.openhft.chronicle.bytes.BytesOut;
 @EqualsAndHashCode(callSuper = true)
 public class AllocCommand extends BaseLedgerCommand {
 
+    /**
+     * 命令类型：申请 ID
+     */
+    public static final byte TYPE_ALLOC = 0;
+
+    /**
+     * 命令类型：同步 MaxId (从节点追赶主节点时使用，{@code amount} 为目标 MaxId)
+     */
+    public static final byte TYPE_SYNC = 1;
+
+    /**
+     * 命令类型：申请 / 续约 Worker ID 租约 ({@code amount} 为租约时长毫秒)
+     */
+    public static final byte TYPE_LEASE = 2;
+
+    /**
+     * 命令类型：隔离 / 解除隔离本分片 ({@code amount} 为 1 / 0)，隔离后拒绝申请与租约
+     */
+    public static final byte TYPE_FENCE = 3;
+
+    /**
+     * 命令类型：读取本分片全部 Tag 的 MaxId (复制快照使用，不修改状态)
+     */
+    public static final byte TYPE_SNAPSHOT = 4;
+
     /**
      * 业务标识 (Business Tag).
      * <p>例如: "order", "user_id", "chat_group_10086"</p>
@@ -38,33 +63,106 @@ public class AllocCommand extends BaseLedgerCommand {
      */
     private String bizTag;
 
+    /**
+     * 命令类型 (Command Type).
+     * <p>{@link #TYPE_ALLOC}、{@link #TYPE_SYNC}、{@link #TYPE_LEASE}，或复制控制命令 {@link #TYPE_FENCE} / {@link #TYPE_SNAPSHOT}。</p>
+     * <span style="color: gray;">Allocation, or a max-id sync applied by a follower.</span>
+     */
+    private byte type = TYPE_ALLOC;
+
+    /**
+     * 路由键 (为 null 时使用 {@code bizTag}).
+     * <p>同步命令写入 Worker 租约 Key 时按其所属 Tag 路由，与该 Tag 的租约命令落在同一分片。</p>
+     */
+    private String routingKey;
+
+    /**
+     * 租约命令：要续约的 Worker ID (-1 表示申请新的).
+     */
+    private long workerId = -1;
+
+    /**
+     * 租约命令：续约凭证 (上一次返回的到期时间).
+     */
+    private long leaseToken;
+
+    /**
+     * 租约命令：服务端受理时间 (写入日志，保证回放结果一致).
+     */
+    private long leaseTime;
+
+    /**
+     * 租约命令：Worker ID 上限 (不含).
+     */
+    private int maxWorkers;
+
+    /**
+     * 提交到引擎的时间 ({@link System#nanoTime()})，仅用于服务端分阶段计时，不参与序列化.
+     */
+    private transient long submitNanos;
+
+    /**
+     * 处理器完成 Future 的时间 ({@link System#nanoTime()})，仅用于服务端分阶段计时，不参与序列化.
+     */
+    private transient long completeNanos;
+
+    /**
+     * 调用方的截止时间 (epoch 毫秒，0 表示不限)，过期的在线命令不再处理，不参与序列化.
+     * <p>回放时一律处理，保证回放后的状态不低于在线状态。</p>
+     */
+    private transient long deadline;
+
     /**
      * 获取路由键 (Get Routing Key).
      * <p>
-     * <b>核心逻辑：</b> 使用 {@code bizTag} 作为路由键。<br>
+     * <b>核心逻辑：</b> 使用 {@code bizTag} 作为路由键 (显式指定 {@code routingKey} 时除外)。<br>
      * 这样可以保证同一个业务类型的 ID 申请请求，永远被路由到同一个 Disruptor 分片中处理。<br>
      * 从而实现该业务类型下的 ID <b>严格递增</b> 和 <b>绝对无锁</b>。
      * </p>
      */
     @Override
     public String getRoutingKey() {
-        return bizTag;
+        return routingKey != null ? routingKey : bizTag;
     }
 
     /**
-     * 序列化扩展：写入业务字段 (bizTag).
+     * 序列化扩展：写入业务字段 (bizTag, type, 租约 / 同步命令的附加字段).
      */
     @Override
     protected void writeBizData(BytesOut<?> bytes) {
         bytes.writeUtf8(bizTag);
+        bytes.writeByte(type);
+        if (type == TYPE_SYNC) {
+            bytes.writeUtf8(routingKey);
+        } else if (type == TYPE_LEASE) {
+            bytes.writeLong(workerId);
+            bytes.writeLong(leaseToken);
+            bytes.writeLong(leaseTime);
+            bytes.writeInt(maxWorkers);
+        }
     }
 
     /**
-     * 反序列化扩展：读取业务字段 (bizTag).
+     * 反序列化扩展：读取业务字段 (bizTag, type, 租约 / 同步命令的附加字段).
+     * <p>旧版本日志中没有 type 字段，按申请命令处理；旧版本的同步命令没有路由键，按 bizTag 路由。</p>
      */
     @Override
     protected void readBizData(BytesIn<?> bytes) {
         this.bizTag = bytes.readUtf8();
+        this.type = bytes.readRemaining() > 0 ? bytes.readByte() : TYPE_ALLOC;
+        if (type == TYPE_SYNC) {
+            this.routingKey = bytes.readRemaining() > 0 ? bytes.readUtf8() : null;
+        } else if (type == TYPE_LEASE) {
+            this.workerId = bytes.readLong();
+            this.leaseToken = bytes.readLong();
+            this.leaseTime = bytes.readLong();
+            this.maxWorkers = bytes.readInt();
+        }
+    }
+
+    // 辅助方法：是否为同步命令
+    public boolean isSync() {
+        return type == TYPE_SYNC;
     }
 
     // 辅助方法：获取申请数量 (语义更清晰)
@@ -76,4 +174,44 @@ public class AllocCommand extends BaseLedgerCommand {
     public void setCount(int count) {
         this.amount = count;
     }
+
+    // 辅助方法：获取租约时长 (毫秒)
+    public long getLeaseTtl() {
+        return this.amount;
+    }
+
+    // 辅助方法：设置租约时长 (毫秒)
+    public void setLeaseTtl(long leaseTtl) {
+        this.amount = leaseTtl;
+    }
+
+    // 辅助方法：是否为租约命令
+    public boolean isLease() {
+        return type == TYPE_LEASE;
+    }
+
+    // 辅助方法：是否为复制控制命令 (隔离 / 快照)
+    public boolean isControl() {
+        return type == TYPE_FENCE || type == TYPE_SNAPSHOT;
+    }
+
+    // 辅助方法：隔离命令的目标状态 (false 为解除隔离)
+    public boolean isFenceOn() {
+        return this.amount != 0;
+    }
+
+    // 辅助方法：设置隔离命令的目标状态
+    public void setFenceOn(boolean fenceOn) {
+        this.amount = fenceOn ? 1 : 0;
+    }
+
+    // 辅助方法：获取同步命令的目标 MaxId
+    public long getSyncMax() {
+        return this.amount;
+    }
+
+    // 辅助方法：设置同步命令的目标 MaxId
+    public void setSyncMax(long syncMax) {
+        this.amount = syncMax;
+    }
 }
@@ -59,17 +59,31 @@ public class AllocResult implements Serializable {
      */
     private long maxId;
 
+    /**
+     * 服务端推荐步长 (Recommended Step).
+     * <p>根据该 Tag 近期的分配速率估算，0 表示暂无推荐。</p>
+     * <span style="color: gray;">Step sized to refill about once per target interval at the tag's recent rate; 0 if unknown.</span>
+     */
+    private long recommendedStep;
+
     /**
      * 快速构建成功结果.
      */
     public static AllocResult success(long minId, long maxId) {
-        return new AllocResult(true, "OK", 200, minId, maxId);
+        return success(minId, maxId, 0);
+    }
+
+    /**
+     * 快速构建成功结果 (附带推荐步长).
+     */
+    public static AllocResult success(long minId, long maxId, long recommendedStep) {
+        return new AllocResult(true, "OK", 200, minId, maxId, recommendedStep);
     }
 
     /**
      * 快速构建失败结果.
      */
     public static AllocResult fail(int code, String message) {
-        return new AllocResult(false, message, code, -1, -1);
+        return new AllocResult(false, message, code, -1, -1, 0);
     }
 }
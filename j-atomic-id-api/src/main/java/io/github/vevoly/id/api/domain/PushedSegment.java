@@ -0,0 +1,42 @@
+package io.github.vevoly.id.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * <h3>推送号段 (Pushed Segment)</h3>
+ *
+ * <p>
+ * 订阅模式下服务端主动推送给客户端的号段，对应 SSE 事件 {@code segment} 的数据。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Pushed Segment.</b><br>
+ * Payload of the {@code segment} server-sent event in subscription mode.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PushedSegment implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 业务标识 (Business Tag).
+     */
+    private String bizTag;
+
+    /**
+     * 申请结果 (Allocation Result).
+     */
+    private AllocResult result;
+}
@@ -10,6 +10,12 @@ public enum IdErrorCode {
     IP_NOT_ALLOWED(4004, "IP address not in whitelist"),
     MISSING_AUTH_HEADER(4005, "Missing authentication header"),
     INVALID_PARAMS(4006, "Invalid parameters"),
+    NOT_OWNER(4007, "Tag is owned by another node"),
+    NOT_LEADER(4008, "This node is not the leader"),
+    LEASE_EXPIRED(4009, "Worker lease expired or token mismatch"),
+    NO_WORKER_AVAILABLE(4010, "No worker id available"),
+    RATE_LIMITED(4011, "Rate limit exceeded"),
+    DEADLINE_EXCEEDED(4012, "Request deadline exceeded"),
     SERVER_BUSY(503, "Server is busy, please retry"),
     INTERNAL_ERROR(500, "Internal server error"),
     DUPLICATE_REQUEST(1001, "Duplicate request, idempotency check failed");
@@ -0,0 +1,324 @@
+package io.github.vevoly.id.api.protocol;
+
+import io.github.vevoly.id.api.domain.AllocResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * <h3>二进制传输协议 (Binary Transport Protocol)</h3>
+ *
+ * <p>
+ * TCP 长连接上的定长前缀帧协议，支持 Pipeline：客户端可以连续发送多个请求，
+ * 服务端按完成顺序返回，通过 {@code requestId} 匹配请求与响应。
+ * </p>
+ *
+ * <pre>
+ * +--------+------+-----------+---------+
+ * | length | type | requestId | payload |
+ * | int    | byte | long      | ...     |
+ * +--------+------+-----------+---------+
+ * length = 1 + 8 + payload 长度 (不含 length 自身)
+ *
+ * AUTH   payload: appKey(UTF) timestamp(long) signature(UTF)
+ * ALLOC  payload: bizTag(UTF) count(int) [txId(UTF)]
+ * RESULT payload: success(byte) code(int) minId(long) maxId(long) message(UTF, 成功时为空) recommendedStep(long)
+ * LEASE  payload: bizTag(UTF) workerId(long) token(long) ttlMillis(long) maxWorkers(int)
+ * </pre>
+ *
+ * <p>
+ * ALLOC 的 txId 可选 (帧尾)：携带时服务端对同一 txId 的重试返回首次的号段，与 HTTP 的 txId 参数一致。
+ * </p>
+ *
+ * <p>
+ * LEASE 申请 / 续约 Worker ID 租约 (TIME_LEASED 模式)，参数与 HTTP {@code /id/worker/lease} 一致，以 RESULT 帧响应：
+ * 成功时 minId 为 Worker ID，maxId 为到期时间。旧版服务端不识别该帧，返回 INVALID_PARAMS 失败结果。
+ * </p>
+ *
+ * <p>
+ * HTTP 接口在 {@code Accept: application/x-atomic-id} 时以 RESULT payload 作为响应体 (见 {@link #encodeResult})，
+ * 成功结果固定 31 字节，不经过 JSON 编解码。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Binary Transport Protocol.</b><br>
+ * Length-prefixed frames over persistent TCP connections. Requests may be pipelined;
+ * responses are matched by {@code requestId}.
+ * </span>
+ *
+ * @author vevoly
+ */
+public final class IdProtocol {
+
+    public static final byte TYPE_AUTH = 1;
+    public static final byte TYPE_ALLOC = 2;
+    public static final byte TYPE_RESULT = 3;
+    public static final byte TYPE_LEASE = 4;
+
+    /**
+     * 单帧最大长度，超过视为非法连接
+     */
+    public static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+    /**
+     * HTTP 二进制响应体的媒体类型
+     */
+    public static final String BINARY_MEDIA_TYPE = "application/x-atomic-id";
+
+    // type(1) + requestId(8)
+    private static final int HEADER_LENGTH = 1 + 8;
+
+    // 成功结果的 RESULT payload 长度: success(1) code(4) minId(8) maxId(8) 空 message(2) recommendedStep(8)
+    private static final int SUCCESS_PAYLOAD_LENGTH = 1 + 4 + 8 + 8 + 2 + 8;
+
+    private IdProtocol() {
+    }
+
+    /**
+     * 写入鉴权帧 (签名参数: appKey, timestamp)
+     */
+    public static void writeAuth(DataOutputStream out, long requestId, String appKey, long timestamp, String signature) throws IOException {
+        out.writeInt(HEADER_LENGTH + utfLength(appKey) + 8 + utfLength(signature));
+        out.writeByte(TYPE_AUTH);
+        out.writeLong(requestId);
+        out.writeUTF(appKey);
+        out.writeLong(timestamp);
+        out.writeUTF(signature);
+    }
+
+    /**
+     * 写入 ID 申请帧
+     */
+    public static void writeAlloc(DataOutputStream out, long requestId, String bizTag, int count) throws IOException {
+        writeAlloc(out, requestId, bizTag, count, null);
+    }
+
+    /**
+     * 写入 ID 申请帧 (txId 为 null 时不写，帧与旧版一致)
+     */
+    public static void writeAlloc(DataOutputStream out, long requestId, String bizTag, int count, String txId) throws IOException {
+        out.writeInt(HEADER_LENGTH + utfLength(bizTag) + 4 + (txId == null ? 0 : utfLength(txId)));
+        out.writeByte(TYPE_ALLOC);
+        out.writeLong(requestId);
+        out.writeUTF(bizTag);
+        out.writeInt(count);
+        if (txId != null) {
+            out.writeUTF(txId);
+        }
+    }
+
+    /**
+     * 写入 Worker ID 租约帧
+     */
+    public static void writeLease(DataOutputStream out, long requestId, String bizTag, long workerId, long token,
+                                  long ttlMillis, int maxWorkers) throws IOException {
+        out.writeInt(HEADER_LENGTH + utfLength(bizTag) + 8 + 8 + 8 + 4);
+        out.writeByte(TYPE_LEASE);
+        out.writeLong(requestId);
+        out.writeUTF(bizTag);
+        out.writeLong(workerId);
+        out.writeLong(token);
+        out.writeLong(ttlMillis);
+        out.writeInt(maxWorkers);
+    }
+
+    /**
+     * 写入结果帧 (成功时不写 message)
+     */
+    public static void writeResult(DataOutputStream out, long requestId, AllocResult result) throws IOException {
+        String message = result.isSuccess() || result.getMessage() == null ? "" : result.getMessage();
+        out.writeInt(HEADER_LENGTH + 1 + 4 + 8 + 8 + utfLength(message) + 8);
+        out.writeByte(TYPE_RESULT);
+        out.writeLong(requestId);
+        out.writeBoolean(result.isSuccess());
+        out.writeInt(result.getCode());
+        out.writeLong(result.getMinId());
+        out.writeLong(result.getMaxId());
+        out.writeUTF(message);
+        out.writeLong(result.getRecommendedStep());
+    }
+
+    /**
+     * 读取一帧到可复用的 {@link Frame} 中
+     * <p>
+     * 实际读取的字节数必须与声明的 length 完全一致，否则抛出 IOException (调用方应关闭连接)，
+     * 避免畸形帧使后续帧错位。
+     * </p>
+     *
+     * @return 传入的 frame；未知类型的帧会被跳过，type 保留原值
+     */
+    public static Frame readFrame(DataInputStream in, Frame frame) throws IOException {
+        int length = in.readInt();
+        if (length < HEADER_LENGTH || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Illegal frame length: " + length);
+        }
+        frame.type = in.readByte();
+        frame.requestId = in.readLong();
+        int consumed = HEADER_LENGTH;
+        switch (frame.type) {
+            case TYPE_AUTH -> {
+                frame.appKey = in.readUTF();
+                frame.timestamp = in.readLong();
+                frame.signature = in.readUTF();
+                consumed += utfLength(frame.appKey) + 8 + utfLength(frame.signature);
+            }
+            case TYPE_ALLOC -> {
+                frame.bizTag = in.readUTF();
+                frame.count = in.readInt();
+                consumed += utfLength(frame.bizTag) + 4;
+                // 旧版客户端不带 txId
+                frame.txId = null;
+                if (length > consumed) {
+                    frame.txId = in.readUTF();
+                    consumed += utfLength(frame.txId);
+                }
+            }
+            case TYPE_LEASE -> {
+                frame.bizTag = in.readUTF();
+                frame.workerId = in.readLong();
+                frame.leaseToken = in.readLong();
+                frame.ttlMillis = in.readLong();
+                frame.maxWorkers = in.readInt();
+                consumed += utfLength(frame.bizTag) + 8 + 8 + 8 + 4;
+            }
+            case TYPE_RESULT -> {
+                boolean success = in.readBoolean();
+                int code = in.readInt();
+                long minId = in.readLong();
+                long maxId = in.readLong();
+                String message = in.readUTF();
+                consumed += 1 + 4 + 8 + 8 + utfLength(message);
+                // 兼容旧版服务端：推荐步长位于帧尾，缺失时为 0
+                long recommendedStep = 0L;
+                if (length - consumed >= 8) {
+                    recommendedStep = in.readLong();
+                    consumed += 8;
+                }
+                frame.result = success
+                        ? AllocResult.success(minId, maxId, recommendedStep)
+                        : AllocResult.fail(code, message);
+            }
+            default -> {
+                in.skipNBytes(length - HEADER_LENGTH);
+                consumed = length;
+            }
+        }
+        if (consumed != length) {
+            throw new IOException("Frame length mismatch: declared " + length + ", consumed " + consumed);
+        }
+        return frame;
+    }
+
+    /**
+     * 把结果编码为 RESULT payload (HTTP 二进制响应体)，成功结果直接写入定长数组
+     */
+    public static byte[] encodeResult(AllocResult result) {
+        if (result.isSuccess()) {
+            byte[] body = new byte[SUCCESS_PAYLOAD_LENGTH];
+            body[0] = 1;
+            putInt(body, 1, result.getCode());
+            putLong(body, 5, result.getMinId());
+            putLong(body, 13, result.getMaxId());
+            // body[21..22]: 空 message 的长度 0
+            putLong(body, 23, result.getRecommendedStep());
+            return body;
+        }
+        String message = result.getMessage() == null ? "" : result.getMessage();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 + 4 + 8 + 8 + utfLength(message) + 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeBoolean(false);
+            out.writeInt(result.getCode());
+            out.writeLong(result.getMinId());
+            out.writeLong(result.getMaxId());
+            out.writeUTF(message);
+            out.writeLong(result.getRecommendedStep());
+        } catch (IOException e) {
+            // 内存流不会抛出
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解码 RESULT payload (HTTP 二进制响应体)
+     */
+    public static AllocResult decodeResult(byte[] body) throws IOException {
+        if (body.length == SUCCESS_PAYLOAD_LENGTH && body[0] == 1 && body[21] == 0 && body[22] == 0) {
+            return AllocResult.success(getLong(body, 5), getLong(body, 13), getLong(body, 23));
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        boolean success = in.readBoolean();
+        int code = in.readInt();
+        long minId = in.readLong();
+        long maxId = in.readLong();
+        String message = in.readUTF();
+        long recommendedStep = in.available() >= 8 ? in.readLong() : 0L;
+        return success ? AllocResult.success(minId, maxId, recommendedStep) : AllocResult.fail(code, message);
+    }
+
+    private static void putInt(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>> 8);
+        b[off + 3] = (byte) v;
+    }
+
+    private static void putLong(byte[] b, int off, long v) {
+        putInt(b, off, (int) (v >>> 32));
+        putInt(b, off + 4, (int) v);
+    }
+
+    private static long getLong(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[off + i] & 0xFF);
+        }
+        return v;
+    }
+
+    /**
+     * 计算 {@link DataOutputStream#writeUTF(String)} 写出的字节数 (含 2 字节长度前缀)
+     */
+    private static int utfLength(String s) {
+        int len = 2;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                len += 1;
+            } else if (c > 0x07FF) {
+                len += 3;
+            } else {
+                len += 2;
+            }
+        }
+        return len;
+    }
+
+    /**
+     * 解码后的帧 (每个连接复用一个实例，非线程安全)
+     */
+    public static final class Frame {
+        public byte type;
+        public long requestId;
+        // ALLOC
+        public String bizTag;
+        public int count;
+        public String txId;
+        // LEASE (bizTag 共用)
+        public long workerId;
+        public long leaseToken;
+        public long ttlMillis;
+        public int maxWorkers;
+        // AUTH
+        public String appKey;
+        public long timestamp;
+        public String signature;
+        // RESULT
+        public AllocResult result;
+    }
+}
@@ -3,17 +3,47 @@ package io.github.vevoly.id.api.utils;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * 签名工具类
+ * <p>
+ * 签名原文: 参数按 Key 字典序排序后拼接为 key1=value1&key2=value2，使用 HMAC-SHA256 计算后 Base64 编码。
+ * 携带 {@code X-Deadline} 的请求把 {@code X-Deadline} 与 {@code X-Timestamp} 两个 Header 也作为参数计入原文，
+ * 防止截止时间被篡改。
+ * </p>
+ * <p>
+ * 节点间管理接口 ({@code /cluster/**}) 另把请求方法与路径作为 {@link #METHOD_KEY} / {@link #PATH_KEY} 计入原文，
+ * 一个接口的签名不能在有效期内被重放到另一个接口 (如把只读的快照请求重放为隔离请求)。
+ * </p>
+ * <p>
+ * 热路径不产生临时对象：每个线程缓存按密钥初始化好的 {@link Mac}，原文直接写入线程私有的字节缓冲，
+ * 参数排序使用线程私有数组，校验时把摘要编码到线程私有缓冲后与请求签名做常量时间比较。
+ * </p>
  */
 public class SignatureUtils {
 
     private static final String ALGORITHM = "HmacSHA256";
 
+    // HMAC-SHA256 摘要 32 字节，Base64 后 44 字节
+    private static final int MAC_LENGTH = 32;
+    private static final int SIGNATURE_LENGTH = 44;
+
+    private static final ThreadLocal<Context> CONTEXT = ThreadLocal.withInitial(Context::new);
+
+    /**
+     * 管理接口签名原文中的请求方法 (如 POST)
+     */
+    public static final String METHOD_KEY = "X-Method";
+
+    /**
+     * 管理接口签名原文中的请求路径 (不含查询串，如 /cluster/replication/fence)
+     */
+    public static final String PATH_KEY = "X-Path";
+
     /**
      * 服务端校验签名
      */
@@ -21,37 +51,186 @@ public class SignatureUtils {
         if (signature == null || secret == null || params == null) {
             return false;
         }
-        String serverSignature = sign(secret, params);
-        return signature.equals(serverSignature);
+        Context ctx = CONTEXT.get();
+        ctx.collect(params);
+        return ctx.verify(signature, secret);
+    }
+
+    /**
+     * 服务端校验签名 (直接使用 Servlet 参数表，每个参数取第一个值)
+     *
+     * @param keyValues 额外计入原文的 key1, value1, key2, value2... (如签名的 Header)
+     */
+    public static boolean verifyParameterMap(String signature, String secret, Map<String, String[]> parameterMap,
+                                             String... keyValues) {
+        if (signature == null || secret == null || parameterMap == null) {
+            return false;
+        }
+        Context ctx = CONTEXT.get();
+        ctx.reset();
+        for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
+            String[] values = entry.getValue();
+            if (values.length > 0) {
+                ctx.add(entry.getKey(), values[0]);
+            }
+        }
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            ctx.add(keyValues[i], keyValues[i + 1]);
+        }
+        return ctx.verify(signature, secret);
     }
 
     /**
      * 计算签名
      */
     public static String sign(String secret, Map<String, String> params) {
-        // 1. 使用 TreeMap 保证参数按 Key 字典序排序
-        Map<String, String> sortedParams = new TreeMap<>(params);
+        Context ctx = CONTEXT.get();
+        ctx.collect(params);
+        return ctx.sign(secret);
+    }
+
+    /**
+     * 计算管理接口签名 (请求方法与路径计入原文)
+     */
+    public static String signRequest(String secret, String method, String path, Map<String, String> params) {
+        Context ctx = CONTEXT.get();
+        ctx.collect(params);
+        ctx.add(METHOD_KEY, method);
+        ctx.add(PATH_KEY, path);
+        return ctx.sign(secret);
+    }
+
+    /**
+     * 计算签名 (参数以 key1, value1, key2, value2... 形式传入，无需构建 Map)
+     */
+    public static String sign(String secret, String... keyValues) {
+        if (keyValues.length % 2 != 0) {
+            throw new IllegalArgumentException("keyValues must be key/value pairs");
+        }
+        Context ctx = CONTEXT.get();
+        ctx.reset();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            ctx.add(keyValues[i], keyValues[i + 1]);
+        }
+        return ctx.sign(secret);
+    }
+
+    /**
+     * 线程私有的签名上下文
+     */
+    private static final class Context {
+
+        // 按密钥缓存已初始化的 Mac (doFinal 后自动重置，可重复使用)
+        private final Map<String, Mac> macs = new HashMap<>();
+
+        private String[] keys = new String[8];
+        private String[] values = new String[8];
+        private int size;
+
+        private byte[] text = new byte[256];
+        private final byte[] digest = new byte[MAC_LENGTH];
+        private final byte[] encoded = new byte[SIGNATURE_LENGTH];
 
-        // 2. 拼接字符串: key1=value1&key2=value2
-        StringBuilder sb = new StringBuilder();
-        for (Map.Entry<String, String> entry : sortedParams.entrySet()) {
-            if (sb.length() > 0) {
-                sb.append('&');
+        void reset() {
+            size = 0;
+        }
+
+        void collect(Map<String, String> params) {
+            reset();
+            for (Map.Entry<String, String> entry : params.entrySet()) {
+                add(entry.getKey(), entry.getValue());
             }
-            sb.append(entry.getKey()).append('=').append(entry.getValue());
         }
 
-        // 3. HMAC-SHA256 加密
-        try {
-            Mac mac = Mac.getInstance(ALGORITHM);
-            SecretKeySpec secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
-            mac.init(secretKey);
-            byte[] hash = mac.doFinal(sb.toString().getBytes(StandardCharsets.UTF_8));
+        /**
+         * 按 Key 字典序插入 (参数通常只有 2~3 个，插入排序即可)
+         */
+        void add(String key, String value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0 && keys[i - 1].compareTo(key) > 0) {
+                keys[i] = keys[i - 1];
+                values[i] = values[i - 1];
+                i--;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        String sign(String secret) {
+            digest(secret);
+            int n = Base64.getEncoder().encode(digest, encoded);
+            return new String(encoded, 0, n, StandardCharsets.ISO_8859_1);
+        }
 
-            // 4. Base64 编码
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate signature", e);
+        boolean verify(String signature, String secret) {
+            digest(secret);
+            Base64.getEncoder().encode(digest, encoded);
+            // 常量时间比较，避免通过响应时间推测签名
+            int diff = signature.length() ^ SIGNATURE_LENGTH;
+            for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                char c = i < signature.length() ? signature.charAt(i) : 0;
+                diff |= c ^ encoded[i];
+            }
+            return diff == 0;
+        }
+
+        private void digest(String secret) {
+            // 1. 拼接字符串: key1=value1&key2=value2 (直接写入字节缓冲)
+            int len = 0;
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    len = put(len, '&');
+                }
+                len = putString(len, keys[i]);
+                len = put(len, '=');
+                len = putString(len, values[i]);
+            }
+            // 2. HMAC-SHA256 加密
+            try {
+                Mac mac = macs.get(secret);
+                if (mac == null) {
+                    mac = Mac.getInstance(ALGORITHM);
+                    mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+                    macs.put(secret, mac);
+                }
+                mac.update(text, 0, len);
+                mac.doFinal(digest, 0);
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to generate signature", e);
+            }
+        }
+
+        private int put(int pos, char c) {
+            ensure(pos + 1);
+            text[pos] = (byte) c;
+            return pos + 1;
+        }
+
+        private int putString(int pos, String s) {
+            int n = s.length();
+            ensure(pos + n);
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    // 非 ASCII：整体按 UTF-8 编码
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    ensure(pos + bytes.length);
+                    System.arraycopy(bytes, 0, text, pos, bytes.length);
+                    return pos + bytes.length;
+                }
+                text[pos + i] = (byte) c;
+            }
+            return pos + n;
+        }
+
+        private void ensure(int required) {
+            if (required > text.length) {
+                text = Arrays.copyOf(text, Math.max(required, text.length * 2));
+            }
         }
     }
 }
@@ -0,0 +1,41 @@
+package io.github.vevoly.id.api.utils;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 事务 ID 生成器 (替代 UUID.randomUUID)
+ * <p>
+ * 格式: {启动时间}{随机数}-{序号}，均为 36 进制。
+ * 启动时取一次随机数保证跨进程/重启唯一，之后每个线程批量领取一段序号在本地递增，
+ * 热路径上既不访问 SecureRandom，也几乎不竞争共享计数器。
+ * </p>
+ */
+public final class TxIdGenerator {
+
+    // 每个线程一次领取的序号数量
+    private static final int BLOCK_SIZE = 1024;
+
+    private static final String PREFIX = Long.toString(System.currentTimeMillis(), 36)
+            + Integer.toString(new SecureRandom().nextInt() & Integer.MAX_VALUE, 36) + "-";
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    // [0]: 下一个可用序号, [1]: 本段上限 (不含)
+    private static final ThreadLocal<long[]> LOCAL_BLOCK = ThreadLocal.withInitial(() -> new long[2]);
+
+    private TxIdGenerator() {
+    }
+
+    /**
+     * 生成下一个事务 ID
+     */
+    public static String next() {
+        long[] block = LOCAL_BLOCK.get();
+        if (block[0] == block[1]) {
+            block[0] = SEQUENCE.getAndAdd(BLOCK_SIZE);
+            block[1] = block[0] + BLOCK_SIZE;
+        }
+        return PREFIX.concat(Long.toString(block[0]++, 36));
+    }
+}
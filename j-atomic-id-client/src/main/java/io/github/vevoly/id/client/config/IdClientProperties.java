@@ -1,10 +1,14 @@
 package io.github.vevoly.id.client.config;
 
+import io.github.vevoly.id.api.constants.IdConstants;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <h3>客户端配置属性 (Client Configuration Properties)</h3>
@@ -31,6 +35,13 @@ public class IdClientProperties {
      */
     private String serverUrl;
 
+    /**
+     * 备用节点地址 (Standby URLs).
+     * <p>主从热备部署时配置从节点地址。主节点不可用或返回 NOT_LEADER 时按顺序切换。
+     * TCP 传输时取地址中的主机名，端口使用 {@code tcp.port}。</p>
+     */
+    private List<String> standbyUrls = new ArrayList<>();
+
     /**
      * 应用 Key (App Key).
      * <p>用于鉴权或统计 (Optional).</p>
@@ -43,12 +54,159 @@ public class IdClientProperties {
      */
     private String appSecret;
 
+    /**
+     * 传输协议 (Transport Type).
+     * <p>默认 HTTP。设为 TCP 时使用二进制长连接协议，见 {@link Tcp}。</p>
+     */
+    private IdTransportType transport = IdTransportType.HTTP;
+
+    /**
+     * 请求截止时间 (Request Deadline).
+     * <p>HTTP 请求携带 {@code X-Deadline = 当前时间 + deadline} (与 X-Timestamp 一并签名)，
+     * 服务端以 {@code X-Deadline - X-Timestamp} 为预算、从收到请求时起计时，丢弃排队期间已过期的请求。
+     * 应与 HTTP 读超时一致，设为 0 表示不携带。<br>
+     * 默认: 3s。</p>
+     */
+    private Duration deadline = Duration.ofSeconds(3);
+
+    /**
+     * 二进制响应 (Binary Response).
+     * <p>单号段申请在 Accept 中优先声明 {@code application/x-atomic-id}，服务端以定长二进制返回结果，
+     * 省去 JSON 编解码；旧版本服务端不认识该类型时仍返回 JSON，客户端按 Content-Type 解析。<br>
+     * 默认: true。</p>
+     */
+    private boolean binaryResponse = true;
+
+    /**
+     * 二进制 TCP 协议配置 (TCP Transport).
+     */
+    private Tcp tcp = new Tcp();
+
+    /**
+     * 集群配置 (Cluster).
+     * <p>配置节点后按一致性哈希把每个 Tag 路由到归属节点，此时忽略 {@code serverUrl}。</p>
+     */
+    private Cluster cluster = new Cluster();
+
+    /**
+     * 交错号段配置 (Interleave).
+     * <p>对应服务端 {@code j-atomic-id.server.interleave}，列出的 Tag 在多个实例间轮询申请号段。</p>
+     */
+    private Interleave interleave = new Interleave();
+
+    /**
+     * 号段推送订阅配置
+     */
+    private Push push = new Push();
+
     /**
      * 业务规则列表 (Business Rules).
      * <p>针对不同的业务 tag 配置不同的生成策略。</p>
      */
     private List<Rule> rules = new ArrayList<>();
 
+    /**
+     * 二进制 TCP 协议配置
+     */
+    @Data
+    public static class Tcp {
+
+        /**
+         * 服务端主机 (Server Host).
+         */
+        private String host = "localhost";
+
+        /**
+         * 服务端 TCP 端口 (Server TCP Port).
+         * <p>对应服务端 {@code j-atomic-id.server.tcp.port}。</p>
+         */
+        private int port = 9090;
+
+        /**
+         * 建连与鉴权超时 (Connect Timeout).
+         */
+        private Duration connectTimeout = Duration.ofSeconds(3);
+
+        /**
+         * 单次请求超时 (Request Timeout).
+         */
+        private Duration requestTimeout = Duration.ofSeconds(3);
+    }
+
+    /**
+     * 集群配置 (须与服务端 {@code j-atomic-id.server.cluster} 的成员列表与虚拟节点数一致)
+     */
+    @Data
+    public static class Cluster {
+
+        /**
+         * 静态成员列表 (Nodes).
+         * <p>Key: 节点 ID, Value: 节点 HTTP 地址 (如 http://10.0.0.1:8090)。
+         * TCP 传输时取地址中的主机名，端口使用 {@code tcp.port}。</p>
+         */
+        private Map<String, String> nodes = new HashMap<>();
+
+        /**
+         * 成员文件 (Nodes File).
+         * <p>Properties 格式 (nodeId=address)，配置后优先于 nodes。</p>
+         */
+        private String nodesFile;
+
+        /**
+         * 每个节点的虚拟节点数 (Virtual Nodes).
+         */
+        private int virtualNodes = 128;
+
+        public boolean isEnabled() {
+            return !nodes.isEmpty() || (nodesFile != null && !nodesFile.isEmpty());
+        }
+    }
+
+    /**
+     * 交错号段配置
+     */
+    @Data
+    public static class Interleave {
+
+        /**
+         * 交错号段模式的 Tag (Tags).
+         * <p>这些 Tag 只保证唯一、不保证全局递增。</p>
+         */
+        private List<String> tags = new ArrayList<>();
+
+        /**
+         * 服务实例地址 (Servers).
+         * <p>HTTP 地址，如 http://10.0.0.1:8090。TCP 传输时取地址中的主机名，端口使用 {@code tcp.port}。</p>
+         */
+        private List<String> servers = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return !tags.isEmpty() && !servers.isEmpty();
+        }
+    }
+
+    /**
+     * 号段推送订阅配置 (连接 serverUrl 的 {@code /id/subscribe}，仅支持 HTTP)
+     */
+    @Data
+    public static class Push {
+
+        /**
+         * 订阅推送的 Tag (Tags).
+         * <p>须为 SEGMENT 模式，步长取对应规则的 step。服务端提前推送下一个号段，主动拉取仅作为兜底。</p>
+         */
+        private List<String> tags = new ArrayList<>();
+
+        /**
+         * 断线重连间隔 (Reconnect Interval).
+         */
+        private Duration reconnectInterval = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return !tags.isEmpty();
+        }
+    }
+
     /**
      * 单个业务规则配置
      */
@@ -82,6 +240,67 @@ public class IdClientProperties {
          */
         private double minBufferRatio = 0.4;
 
+        /**
+         * 自适应步长 (Adaptive Step).
+         * <p>仅在 SEGMENT 模式下生效。开启后按服务端返回的推荐步长 (根据该 Tag 近期速率估算) 申请下一个号段，
+         * 并限制在 [minStep, maxStep] 范围内；服务端暂无推荐时使用 step。<br>
+         * 默认: false。</p>
+         */
+        private boolean adaptiveStep = false;
+
+        /**
+         * 自适应步长下限 (Min Step).
+         * <p>默认: 100。</p>
+         */
+        private int minStep = 100;
+
+        /**
+         * 自适应步长上限 (Max Step).
+         * <p>服务端推荐的是该 Tag 所有实例的总速率，多实例部署时以此限制单实例的号段大小。<br>
+         * 默认: 100000。</p>
+         */
+        private int maxStep = 100000;
+
+        /**
+         * 条带大小 (Stripe Size).
+         * <p>仅在 SEGMENT 模式下生效。大于 1 时每个线程一次从号段中认领 stripeSize 个 ID，之后在本线程内发放，
+         * 热点 Tag 的多个线程不再争抢同一个游标。<br>
+         * 取舍：单线程内 ID 仍单调递增，但线程之间不再按时间先后递增 (先发出的 ID 可能大于其他线程后发出的)；
+         * 认领的区间只在其号段仍为当前号段时发放，号段切换后线程手中剩余的 ID 被丢弃成为空洞，
+         * 因此闲置线程不会在切换后发出旧号段的 ID，每次切换每个线程最多浪费 stripeSize - 1 个。
+         * 每个线程为每个开启条带的 Tag 保存一个区间，只建议对少量热点 Tag 开启，取 16 - 256。<br>
+         * 默认: 0 (关闭)。</p>
+         */
+        private int stripeSize = 0;
+
+        /**
+         * Worker ID 位数 (Worker Bits).
+         * <p>仅在 TIME_LEASED 模式下生效。时间戳以下共 22 位，Worker ID 占 workerBits 位，其余为毫秒内序列号。<br>
+         * 默认: 8 (最多 256 个实例，每实例每毫秒 16384 个 ID)。</p>
+         */
+        private int workerBits = 8;
+
+        /**
+         * Worker ID 租约时长 (Lease TTL).
+         * <p>仅在 TIME_LEASED 模式下生效。客户端每 1/3 租期续约一次。<br>
+         * 默认: 30s。</p>
+         */
+        private Duration leaseTtl = Duration.ofSeconds(30);
+
+        /**
+         * 时间戳起点 (Epoch Millis).
+         * <p>仅在 TIME_LEASED 模式下生效。同一 Tag 的所有实例必须一致。<br>
+         * 默认: 2024-01-01 00:00:00 UTC。</p>
+         */
+        private long epochMillis = IdConstants.DEFAULT_EPOCH_MILLIS;
+
+        /**
+         * 最大借用毫秒数 (Max Borrow Millis).
+         * <p>仅在 TIME_LEASED 模式下生效。序列号用尽或时钟小幅回拨时，允许领先系统时钟的最大毫秒数，超出后降级为号段模式。<br>
+         * 默认: 5。</p>
+         */
+        private long maxBorrowMillis = 5;
+
         /**
          * 格式化规则 (Format Pattern).
          * <p>可选。例如: "ORD-{yyyyMMdd}-{seq}"。如果不填则返回原始 long ID。</p>
@@ -31,6 +31,17 @@ public enum IdMode {
      * </p>
      * <span style="color: gray;">Best for strict consistency (IM Messages). Real-time network request for every ID. No gaps.</span>
      */
-    STRICT
+    STRICT,
+
+    /**
+     * <b>时间租约模式 (Time-based Leased Mode)</b>
+     * <p>
+     * 适用于：日志、事件 ID 等趋势递增即可、且希望 ID 生成完全不依赖网络的场景。
+     * <br>客户端向服务端租用一个 Worker ID，并按 "时间戳 + Worker ID + 序列号" 在本地生成 ID，后台定期续约。
+     * <br>租约不可用或时钟回拨超出容忍范围时，自动降级为号段模式。
+     * </p>
+     * <span style="color: gray;">Best for trend-increasing IDs (Logs, Events). Leases a worker id and generates IDs locally from the clock. Falls back to SEGMENT when the lease is unavailable.</span>
+     */
+    TIME_LEASED
 }
 
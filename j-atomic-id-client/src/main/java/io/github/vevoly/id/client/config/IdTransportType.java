@@ -0,0 +1,28 @@
+package io.github.vevoly.id.client.config;
+
+/**
+ * <h3>传输协议类型 (Transport Type)</h3>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Transport Type Enum.</b><br>
+ * Defines which protocol the client SDK uses to talk to the server.
+ * </span>
+ *
+ * @author vevoly
+ */
+public enum IdTransportType {
+    /**
+     * <b>HTTP + JSON</b>
+     * <p>默认方式，通过 RestTemplate 调用 {@code /id/alloc}。</p>
+     * <span style="color: gray;">Default. Calls {@code /id/alloc} via RestTemplate.</span>
+     */
+    HTTP,
+
+    /**
+     * <b>二进制 TCP 长连接</b>
+     * <p>适用于 STRICT 模式等高频小请求，需服务端开启 {@code j-atomic-id.server.tcp.enabled}。</p>
+     * <span style="color: gray;">Binary frames over a persistent, pipelined TCP connection.</span>
+     */
+    TCP
+}
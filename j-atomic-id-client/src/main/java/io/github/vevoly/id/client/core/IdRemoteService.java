@@ -1,39 +1,31 @@
 package io.github.vevoly.id.client.core;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.vevoly.id.api.domain.AllocResult;
 import io.github.vevoly.id.api.exceptions.IdErrorCode;
-import io.github.vevoly.id.api.utils.SignatureUtils;
+import io.github.vevoly.id.api.exceptions.IdException;
+import io.github.vevoly.id.api.utils.TxIdGenerator;
 import io.github.vevoly.id.client.config.IdClientProperties;
+import io.github.vevoly.id.client.core.transport.HttpIdTransport;
+import io.github.vevoly.id.client.core.transport.IdTransport;
 import io.github.vevoly.id.client.utils.Retryer;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tomcat.util.json.JSONParser;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.web.ErrorResponse;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * <h3>远程 ID 申请服务 (Remote ID Allocation Service)</h3>
  *
  * <p>
- * 负责通过 HTTP 协议与 j-atomic-id-server 通信。
+ * 负责通过 {@link IdTransport} (HTTP 或二进制 TCP) 与 j-atomic-id-server 通信。
  * 内置了重试机制，确保在网络抖动时能尽可能获取到 ID。
  * </p>
  *
  * <hr>
  * <span style="color: gray; font-size: 0.9em;">
  * <b>Remote ID Allocation Service.</b><br>
- * Handles HTTP communication with j-atomic-id-server.<br>
+ * Talks to j-atomic-id-server through a pluggable {@link IdTransport} (HTTP or binary TCP).<br>
  * Built-in retry mechanism to ensure availability during network jitters.
  * </span>
  *
@@ -42,13 +34,14 @@ import java.util.Map;
 @Slf4j
 public class IdRemoteService {
 
-    private final RestTemplate restTemplate;
-    private final IdClientProperties properties;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final IdTransport transport;
+
+    public IdRemoteService(IdTransport transport) {
+        this.transport = transport;
+    }
 
     public IdRemoteService(RestTemplate restTemplate, IdClientProperties properties) {
-        this.restTemplate = restTemplate;
-        this.properties = properties;
+        this(new HttpIdTransport(restTemplate, properties));
     }
 
     /**
@@ -59,55 +52,80 @@ public class IdRemoteService {
      * @return 申请结果 (包含 minId, maxId)
      */
     public AllocResult alloc(String bizTag, int step) {
-        // 1. 准备待签名参数
-        Map<String, String> params = new HashMap<>();
-        params.put("tag", bizTag);
-        params.put("count", String.valueOf(step));
-        // 2. 构建签名
-        String appKey = properties.getAppKey();
-        String secret = properties.getAppSecret();
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String signature = SignatureUtils.sign(secret, params);
-        // 3. 构建 URL: http://localhost:8090/id/alloc?tag=order&count=1000
-        String url = UriComponentsBuilder.fromHttpUrl(properties.getServerUrl())
-                .path("/id/alloc")
-                .queryParam("tag", bizTag)
-                .queryParam("count", step)
-                .toUriString();
-        // 4. 构建 Header
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-App-Key", appKey);
-        headers.set("X-Timestamp", timestamp);
-        headers.set("X-Signature", signature);
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
-
+        // 同一次逻辑申请的所有重试使用同一个事务 ID，服务端对重复请求返回首次的号段
+        String txId = TxIdGenerator.next();
         try {
-            // 5. 执行请求 (带重试: 最多试3次，间隔200ms) / Retry: max 3 attempts, 200ms interval
+            // 执行请求 (带重试: 最多试3次，间隔200ms) / Retry: max 3 attempts, 200ms interval
             return Retryer.execute(() -> {
-                AllocResult result =  restTemplate.exchange(url, HttpMethod.POST, entity, AllocResult.class).getBody();
+                AllocResult result = transport.alloc(bizTag, step, txId);
                 // 校验业务结果
-                if (result == null || !result.isSuccess()) {
-                    throw new RuntimeException("Server returned error: " + (result != null ? result.getMessage() : "Empty Response"));
+                if (result == null) {
+                    throw new IdException(IdErrorCode.SERVER_BUSY.getCode(), "Server returned error: Empty Response");
+                }
+                if (!result.isSuccess()) {
+                    throw new IdException(result.getCode(), "Server returned error: " + result.getMessage());
                 }
                 return result;
             }, 3, 200);
 
-        } catch (HttpServerErrorException e) {
-            String body = e.getResponseBodyAsString();
-            // 尝试解析服务端返回的错误 JSON
-            try {
-                log.warn("[j-atomic-id-client] Server returned error: {}", body);
-                AllocResult allocResult = objectMapper.readValue(body, AllocResult.class);
-                return AllocResult.fail(allocResult.getCode(), allocResult.getMessage());
-            } catch (Exception parseEx) {
-                // 如果 JSON 解析失败 (比如 Nginx 返回了 HTML)，返回通用的 HTTP 错误
-                log.warn("[j-atomic-id-client] Failed to parse error body: {}", body, parseEx);
-                return AllocResult.fail(e.getStatusCode().value(), "HTTP Error: " + e.getStatusText());
-            }
+        } catch (IdException e) {
+            log.error("[j-atomic-id-client] Failed to alloc ID for tag: {}, {}", bizTag, e.getMessage());
+            return AllocResult.fail(e.getCode(), e.getMessage());
+        } catch (Exception e) {
+            // 彻底失败，返回失败结果，由调用方决定是否中断业务
+            log.error("[j-atomic-id-client] Failed to alloc ID for tag: {}", bizTag, e);
+            return AllocResult.fail(IdErrorCode.SERVER_BUSY.getCode(), IdErrorCode.SERVER_BUSY.getMessage());
+        }
+    }
+
+    /**
+     * 申请或续约 Worker ID 租约 (Lease Worker ID).
+     *
+     * @param bizTag     业务标识
+     * @param workerId   续约的 Worker ID，-1 表示申请新的
+     * @param token      续约凭证 (上次返回的到期时间)
+     * @param ttlMillis  租约时长
+     * @param maxWorkers Worker ID 上限 (不含)
+     * @return 成功时 minId 为 Worker ID，maxId 为到期时间；续约被拒绝等业务失败直接返回，不重试
+     */
+    public AllocResult leaseWorker(String bizTag, long workerId, long token, long ttlMillis, int maxWorkers) {
+        try {
+            // 只对通信失败重试
+            return Retryer.execute(() -> {
+                AllocResult result = transport.leaseWorker(bizTag, workerId, token, ttlMillis, maxWorkers);
+                if (result == null) {
+                    throw new IdException(IdErrorCode.SERVER_BUSY.getCode(), "Server returned error: Empty Response");
+                }
+                return result;
+            }, 3, 200);
         } catch (Exception e) {
-            // 6. 彻底失败，抛出运行时异常，中断业务
-            log.error("[j-atomic-id-client] Failed to alloc ID for tag: {}, url: {}", bizTag, url, e);
+            log.error("[j-atomic-id-client] Failed to lease worker id for tag: {}, {}", bizTag, e.getMessage());
             return AllocResult.fail(IdErrorCode.SERVER_BUSY.getCode(), IdErrorCode.SERVER_BUSY.getMessage());
         }
     }
+
+    /**
+     * 批量申请多个 Tag 的号段 (Batch Allocate Segments).
+     * <p>
+     * 一次往返即可为多个 Tag 申请号段，适用于启动预热。
+     * 每个 Tag 的结果相互独立，单个 Tag 失败不影响其他 Tag。
+     * </p>
+     *
+     * @param steps Key: bizTag, Value: 申请数量 (bizTag 中不能包含逗号)
+     * @return Key: bizTag, Value: 申请结果，顺序与入参一致
+     */
+    public Map<String, AllocResult> allocBatch(Map<String, Integer> steps) {
+        try {
+            // 只对整体通信失败重试，单个 Tag 的业务失败直接返回
+            return Retryer.execute(() -> transport.allocBatch(steps), 3, 200);
+        } catch (Exception e) {
+            log.error("[j-atomic-id-client] Failed to batch alloc ID for tags: {}", steps.keySet(), e);
+            AllocResult fail = AllocResult.fail(IdErrorCode.SERVER_BUSY.getCode(), IdErrorCode.SERVER_BUSY.getMessage());
+            Map<String, AllocResult> results = new LinkedHashMap<>();
+            for (String tag : steps.keySet()) {
+                results.put(tag, fail);
+            }
+            return results;
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package io.github.vevoly.id.client.core.generator;
 
+import java.util.Collection;
+
 /**
  * <h3>ID 生成器接口 (ID Generator Interface)</h3>
  *
@@ -26,5 +28,16 @@ public interface IdGenerator {
      * @return 唯一的 long 类型 ID
      */
     long nextId(String bizTag);
+
+    /**
+     * 预热号段 (Warm Up Segments).
+     * <p>
+     * 启动时一次性为多个 Tag 预先申请号段，避免首次调用 {@link #nextId(String)} 时逐个同步请求服务端。
+     * </p>
+     *
+     * @param bizTags 需要预热的业务标识 (Business Tags)
+     */
+    default void warmUp(Collection<String> bizTags) {
+    }
 }
 
@@ -35,6 +35,22 @@ public class Segment {
         return id;
     }
 
+    /**
+     * 一次认领连续的 count 个 ID (条带模式)
+     * @return 认领区间的起点，区间终点为 min(起点 + count - 1, maxId)；号段已耗尽时返回 -1
+     */
+    public long claim(int count) {
+        long start = cursor.getAndAdd(count);
+        if (start > maxId) {
+            return -1; // 耗尽
+        }
+        return start;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
     /**
      * 获取当前消耗比例 (0.0 - 1.0)
      * 用于判断是否需要触发预加载
@@ -5,6 +5,10 @@ import io.github.vevoly.id.client.config.IdClientProperties;
 import io.github.vevoly.id.client.core.IdRemoteService;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
@@ -15,6 +19,7 @@ import java.util.concurrent.locks.ReentrantLock;
  *
  * <p>
  * 实现了<b>"双 Buffer + 异步预加载"</b>机制，确保高并发下获取 ID <b>零延迟</b>。
+ * 开启条带模式 (stripeSize) 后每个线程按区间认领 ID，热点 Tag 上的共享写入降为每 stripeSize 个 ID 一次。
  * </p>
  *
  * <hr>
@@ -31,88 +36,181 @@ public class SegmentBuffer {
     private final ExecutorService asyncLoader; // 异步线程池
 
     // 配置参数
-    private final int step;
+    private final IdClientProperties.Rule rule;
     private final double minBufferRatio;
+    private final int stripeSize;
+
+    // 条带模式下每个线程认领的 ID 区间：所有 Buffer 共用一个 ThreadLocal，每个线程一张以 Buffer 为 Key 的表，
+    // ThreadLocalMap 不随 Tag 数增长；弱引用 Key，Buffer 被回收后对应区间随之清除
+    private static final ThreadLocal<Map<SegmentBuffer, Chunk>> CHUNKS = ThreadLocal.withInitial(WeakHashMap::new);
+
+    // 当前申请步长 (开启自适应时随服务端推荐调整)
+    private volatile int step;
 
     // --- 核心状态 ---
     private volatile Segment current; // 当前正在使用的号段
     private volatile Segment next;    // 下一个备用号段
 
+    // 服务端推送的号段 (订阅模式)，取用时回调 pushAck 触发下一次推送
+    private final Queue<Segment> pushed = new ConcurrentLinkedQueue<>();
+    private volatile Runnable pushAck;
+
     private final AtomicBoolean isLoadingNext = new AtomicBoolean(false); // 是否正在预加载
     private final Lock switchLock = new ReentrantLock(); // 切换锁
 
     public SegmentBuffer(String bizTag, IdClientProperties.Rule rule, IdRemoteService remoteService, ExecutorService asyncLoader) {
+        // 初始化：同步加载第一个号段 (构造时必须可用)
+        this(bizTag, rule, remoteService, asyncLoader, remoteService.alloc(bizTag, rule.getStep()));
+    }
+
+    /**
+     * 使用已申请好的首个号段初始化 (批量预热场景)
+     */
+    public SegmentBuffer(String bizTag, IdClientProperties.Rule rule, IdRemoteService remoteService, ExecutorService asyncLoader,
+                         AllocResult first) {
         this.bizTag = bizTag;
+        this.rule = rule;
         this.step = rule.getStep();
         this.minBufferRatio = rule.getMinBufferRatio();
+        this.stripeSize = rule.getStripeSize();
         this.remoteService = remoteService;
         this.asyncLoader = asyncLoader;
 
-        // 初始化：同步加载第一个号段 (构造时必须可用)
         log.info("初始化号段: {}", bizTag);
-        AllocResult result = remoteService.alloc(bizTag, step);
-        this.current = new Segment(result.getMinId(), result.getMaxId());
+        this.current = toSegment(first);
     }
 
     /**
      * 获取 ID (核心入口)
      */
     public long nextId() {
+        if (stripeSize > 1) {
+            return nextStripedId();
+        }
         while (true) {
             // 1. 尝试从 current 获取
-            long id = current.getNextId();
+            Segment segment = current;
+            long id = segment.getNextId();
             // 2. 如果获取成功
             if (id != -1) {
                 // 检查是否需要预加载 next
-                checkAndLoadNext();
+                checkAndLoadNext(segment);
                 return id;
             }
             // 3. 如果耗尽，执行切换逻辑 (加锁防止并发切换)
-            switchLock.lock();
-            try {
-                // Double Check: 再次尝试获取 (可能别的线程已经切换好了)
-                id = current.getNextId();
-                if (id != -1) {
-                    return id;
-                }
-                // 真的耗尽了，检查 next 是否这就绪
-                if (next == null) {
-                    log.warn("[{}] Current exhausted and Next is null! Blocking wait...", bizTag);
-                    // 这是一个"糟糕"的情况：消费太快，预加载没跟上
-                    // 必须同步去加载 (降级为同步阻塞)
-                    AllocResult result = remoteService.alloc(bizTag, step);
-                    current = new Segment(result.getMinId(), result.getMaxId());
-                } else {
-                    // 正常切换：把 next 转正
-                    log.info("[{}] Switching to next segment.", bizTag);
-                    current = next;
-                    next = null;
-                    isLoadingNext.set(false); // 允许再次触发预加载
+            switchFrom(segment);
+        }
+    }
+
+    /**
+     * 条带模式：优先发放本线程从当前号段认领的区间，用完后一次 getAndAdd 认领下一段。
+     * 号段切换后丢弃本线程在旧号段中剩余的区间 (成为空洞)，闲置线程手中的区间不会在切换后再被发出，
+     * 单线程内仍单调递增。
+     */
+    private long nextStripedId() {
+        Chunk chunk = CHUNKS.get().computeIfAbsent(this, k -> new Chunk());
+        if (chunk.segment == current && chunk.next <= chunk.end) {
+            return chunk.next++;
+        }
+        while (true) {
+            Segment segment = current;
+            long start = segment.claim(stripeSize);
+            if (start != -1) {
+                chunk.segment = segment;
+                chunk.next = start + 1;
+                chunk.end = Math.min(start + stripeSize - 1, segment.getMaxId());
+                checkAndLoadNext(segment);
+                return start;
+            }
+            switchFrom(segment);
+        }
+    }
+
+    /**
+     * 从已耗尽的号段切换 (加锁防止并发切换)，返回后调用方在新的 current 上重试
+     */
+    private void switchFrom(Segment exhausted) {
+        switchLock.lock();
+        try {
+            // Double Check: 别的线程可能已经切换好了
+            if (current != exhausted) {
+                return;
+            }
+            // 真的耗尽了，检查 next 是否这就绪
+            Segment pushedSegment = next == null ? pushed.poll() : null;
+            if (pushedSegment != null) {
+                // 使用服务端推送的号段，并通知服务端推送下一个
+                log.info("[{}] Switching to pushed segment.", bizTag);
+                current = pushedSegment;
+                Runnable ack = pushAck;
+                if (ack != null) {
+                    ack.run();
                 }
-            } finally {
-                switchLock.unlock();
+            } else if (next == null) {
+                log.warn("[{}] Current exhausted and Next is null! Blocking wait...", bizTag);
+                // 这是一个"糟糕"的情况：消费太快，预加载没跟上
+                // 必须同步去加载 (降级为同步阻塞)
+                AllocResult result = remoteService.alloc(bizTag, step);
+                current = toSegment(result);
+            } else {
+                // 正常切换：把 next 转正
+                log.info("[{}] Switching to next segment.", bizTag);
+                current = next;
+                next = null;
+                isLoadingNext.set(false); // 允许再次触发预加载
             }
+        } finally {
+            switchLock.unlock();
         }
     }
 
+    /**
+     * 接收服务端推送的号段 (订阅模式)
+     */
+    public void offer(AllocResult result) {
+        pushed.offer(toSegment(result));
+    }
+
+    /**
+     * 设置推送号段被取用时的回调 (订阅模式)
+     */
+    public void setPushAck(Runnable pushAck) {
+        this.pushAck = pushAck;
+    }
+
+    /**
+     * 构建号段，开启自适应步长时按服务端推荐调整下一次的申请步长
+     */
+    private Segment toSegment(AllocResult result) {
+        long recommended = result.getRecommendedStep();
+        if (rule.isAdaptiveStep() && recommended > 0) {
+            int adjusted = (int) Math.max(rule.getMinStep(), Math.min(rule.getMaxStep(), recommended));
+            if (adjusted != step) {
+                log.debug("[{}] Adjust step {} -> {}", bizTag, step, adjusted);
+                step = adjusted;
+            }
+        }
+        return new Segment(result.getMinId(), result.getMaxId());
+    }
+
     /**
      * 检查并触发异步预加载
      */
-    private void checkAndLoadNext() {
-        // 如果 next 已经有了，或者正在加载中，就不用管了
-        if (next != null || isLoadingNext.get()) {
+    private void checkAndLoadNext(Segment segment) {
+        // 如果 next 已经有了，或者正在加载中，或者有推送的号段待用，就不用管了
+        if (next != null || isLoadingNext.get() || !pushed.isEmpty()) {
             return;
         }
 
         // 检查比例：如果当前用量超过阈值 (例如 40%)
-        if (current.getUsedRatio() >= minBufferRatio) {
+        if (segment.getUsedRatio() >= minBufferRatio) {
             // CAS 抢占加载权
             if (isLoadingNext.compareAndSet(false, true)) {
                 asyncLoader.submit(() -> {
                     try {
                         log.debug("[{}] Async loading next segment...", bizTag);
                         AllocResult result = remoteService.alloc(bizTag, step);
-                        next = new Segment(result.getMinId(), result.getMaxId());
+                        next = toSegment(result);
                         log.debug("[{}] Next segment ready: {}-{}", bizTag, result.getMinId(), result.getMaxId());
                     } catch (Exception e) {
                         log.error("[{}] Async load failed", bizTag, e);
@@ -123,4 +221,13 @@ public class SegmentBuffer {
             }
         }
     }
+
+    /**
+     * 线程从 segment 认领的 ID 区间 [next, end]，只由所属线程读写
+     */
+    private static final class Chunk {
+        private Segment segment;
+        private long next = 1;
+        private long end = 0;
+    }
 }
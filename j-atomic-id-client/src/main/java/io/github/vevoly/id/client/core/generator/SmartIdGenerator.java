@@ -1,11 +1,15 @@
 package io.github.vevoly.id.client.core.generator;
 
 import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.domain.PushedSegment;
 import io.github.vevoly.id.client.config.IdClientProperties;
 import io.github.vevoly.id.client.config.IdMode;
 import io.github.vevoly.id.client.core.IdRemoteService;
+import io.github.vevoly.id.client.core.transport.SegmentSubscriber;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
@@ -16,7 +20,7 @@ import java.util.concurrent.Executors;
  *
  * <p>
  * 客户端调用的总入口。
- * 根据配置自动路由到 {@link SegmentBuffer} (号段) 或直接 RPC (严格)。
+ * 根据配置自动路由到 {@link SegmentBuffer} (号段)、直接 RPC (严格) 或 {@link TimeLeasedGenerator} (时间租约)。
  * </p>
  */
 @Slf4j
@@ -32,9 +36,20 @@ public class SmartIdGenerator implements IdGenerator {
     // Key: bizTag
     private final Map<String, SegmentBuffer> bufferMap = new ConcurrentHashMap<>();
 
+    // 时间租约模式的本地生成器
+    // Key: bizTag
+    private final Map<String, TimeLeasedGenerator> leasedMap = new ConcurrentHashMap<>();
+
+    // 号段推送订阅 (未配置 push.tags 时为 null)
+    private final SegmentSubscriber subscriber;
+
     public SmartIdGenerator(IdRemoteService remoteService, IdClientProperties properties) {
         this.remoteService = remoteService;
         this.properties = properties;
+        this.subscriber = createSubscriber();
+        if (subscriber != null) {
+            subscriber.start();
+        }
     }
 
     @Override
@@ -48,7 +63,16 @@ public class SmartIdGenerator implements IdGenerator {
             return result.getMinId();
         }
 
-        // 3. 号段模式 (订单场景)：走双 Buffer
+        // 3. 时间租约模式：本地生成，租约不可用时降级为号段模式
+        if (rule.getMode() == IdMode.TIME_LEASED) {
+            TimeLeasedGenerator generator = leasedMap.computeIfAbsent(bizTag, k -> new TimeLeasedGenerator(k, rule, remoteService));
+            long id = generator.nextId();
+            if (id != -1) {
+                return id;
+            }
+        }
+
+        // 4. 号段模式 (订单场景)：走双 Buffer
         SegmentBuffer buffer = bufferMap.computeIfAbsent(bizTag, k -> {
             // 懒加载初始化 Buffer
             return new SegmentBuffer(k, rule, remoteService, asyncLoader);
@@ -57,6 +81,78 @@ public class SmartIdGenerator implements IdGenerator {
         return buffer.nextId();
     }
 
+    @Override
+    public void warmUp(Collection<String> bizTags) {
+        // 1. 只预热尚未初始化的号段模式 Tag
+        Map<String, Integer> steps = new LinkedHashMap<>();
+        for (String bizTag : bizTags) {
+            IdClientProperties.Rule rule = findRule(bizTag);
+            if (rule.getMode() == IdMode.SEGMENT && !bufferMap.containsKey(bizTag)) {
+                steps.put(bizTag, rule.getStep());
+            }
+        }
+        if (steps.isEmpty()) {
+            return;
+        }
+
+        // 2. 一次往返申请全部首个号段
+        Map<String, AllocResult> results = remoteService.allocBatch(steps);
+        results.forEach((bizTag, result) -> {
+            if (result.isSuccess()) {
+                bufferMap.computeIfAbsent(bizTag, k -> new SegmentBuffer(k, findRule(k), remoteService, asyncLoader, result));
+            } else {
+                // 预热失败不影响使用，首次 nextId 时会同步加载
+                log.warn("[{}] Warm up failed: {}", bizTag, result.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 为配置了推送的号段模式 Tag 建立订阅
+     */
+    private SegmentSubscriber createSubscriber() {
+        if (!properties.getPush().isEnabled()) {
+            return null;
+        }
+        Map<String, Integer> steps = new LinkedHashMap<>();
+        for (String bizTag : properties.getPush().getTags()) {
+            IdClientProperties.Rule rule = findRule(bizTag);
+            if (rule.getMode() == IdMode.SEGMENT) {
+                steps.put(bizTag, rule.getStep());
+            }
+        }
+        if (steps.isEmpty()) {
+            return null;
+        }
+        return new SegmentSubscriber(properties, steps, this::onPushed);
+    }
+
+    /**
+     * 收到推送的号段：Buffer 尚未初始化时直接作为首个号段 (随即 ack)，否则交给 Buffer 备用
+     */
+    private void onPushed(PushedSegment pushed) {
+        String bizTag = pushed.getBizTag();
+        AllocResult result = pushed.getResult();
+        if (result == null || !result.isSuccess()) {
+            // 推送失败 (如 Tag 归属其他节点)，该 Tag 继续主动拉取
+            log.warn("[{}] Pushed segment failed: {}", bizTag, result == null ? null : result.getMessage());
+            return;
+        }
+        boolean[] created = new boolean[1];
+        SegmentBuffer buffer = bufferMap.computeIfAbsent(bizTag, k -> {
+            created[0] = true;
+            SegmentBuffer pushedBuffer = new SegmentBuffer(k, findRule(k), remoteService, asyncLoader, result);
+            pushedBuffer.setPushAck(() -> subscriber.ack(k));
+            return pushedBuffer;
+        });
+        if (created[0]) {
+            subscriber.ack(bizTag);
+        } else {
+            buffer.setPushAck(() -> subscriber.ack(bizTag));
+            buffer.offer(result);
+        }
+    }
+
     // 查找配置规则，如果没有配置，返回默认值
     private IdClientProperties.Rule findRule(String tag) {
         if (properties.getRules() != null) {
@@ -0,0 +1,159 @@
+package io.github.vevoly.id.client.core.generator;
+
+import io.github.vevoly.id.api.constants.IdConstants;
+import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.exceptions.IdErrorCode;
+import io.github.vevoly.id.client.config.IdClientProperties;
+import io.github.vevoly.id.client.core.IdRemoteService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h3>时间租约 ID 生成器 (Time-based Leased Generator)</h3>
+ *
+ * <p>
+ * 向服务端租用一个 Worker ID，在本地按 {@code (时间戳 - epoch) << 22 | workerId << seqBits | seq} 生成 ID，不需要任何网络往返。
+ * 租约由后台线程每 1/3 租期续约一次，续约凭证为上次返回的到期时间。
+ * </p>
+ * <p>
+ * 以下情况 {@link #nextId()} 返回 -1，由调用方降级为号段模式：
+ * 尚未持有租约、租约即将到期 (预留 1/10 租期)、时钟回拨或序列号借用超过 maxBorrowMillis。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Time-based Leased Generator.</b><br>
+ * Generates IDs locally from the clock under a leased worker id, renewed in the background.
+ * Returns -1 whenever the lease or the clock can not guarantee uniqueness, so the caller falls back to segments.
+ * </span>
+ */
+@Slf4j
+public class TimeLeasedGenerator {
+
+    // 所有 Tag 共用的续约线程
+    private static final ScheduledExecutorService RENEWER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "j-atomic-id-lease-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String bizTag;
+    private final IdRemoteService remoteService;
+
+    private final int seqBits;
+    private final long seqMask;
+    private final int maxWorkers;
+    private final long ttlMillis;
+    private final long epochMillis;
+    private final long maxBorrowMillis;
+
+    // 当前租约 (整体替换，保证 Worker ID 与有效期一致)
+    private volatile Lease lease;
+
+    // 高位为毫秒时间戳，低 seqBits 位为序列号
+    private final AtomicLong state = new AtomicLong();
+
+    public TimeLeasedGenerator(String bizTag, IdClientProperties.Rule rule, IdRemoteService remoteService) {
+        int workerBits = rule.getWorkerBits();
+        if (workerBits < 1 || workerBits >= IdConstants.WORKER_AND_SEQUENCE_BITS) {
+            throw new IllegalArgumentException("workerBits must be in [1, " + (IdConstants.WORKER_AND_SEQUENCE_BITS - 1) + "]");
+        }
+        this.bizTag = bizTag;
+        this.remoteService = remoteService;
+        this.seqBits = IdConstants.WORKER_AND_SEQUENCE_BITS - workerBits;
+        this.seqMask = (1L << seqBits) - 1;
+        this.maxWorkers = (int) Math.min(1L << workerBits, IdConstants.MAX_WORKERS);
+        this.ttlMillis = rule.getLeaseTtl().toMillis();
+        this.epochMillis = rule.getEpochMillis();
+        this.maxBorrowMillis = rule.getMaxBorrowMillis();
+
+        // 首次同步申请，失败时由续约线程继续尝试
+        renew();
+        long period = Math.max(ttlMillis / 3, 1);
+        RENEWER.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取 ID，无法保证唯一时返回 -1
+     */
+    public long nextId() {
+        Lease current = lease;
+        if (current == null) {
+            return -1;
+        }
+        while (true) {
+            long now = System.currentTimeMillis();
+            long cur = state.get();
+            long ts = cur >>> seqBits;
+            long next;
+            if (now > ts) {
+                // 新的毫秒，序列号归零
+                next = now << seqBits;
+            } else if (ts - now > maxBorrowMillis) {
+                // 时钟回拨或借用过多
+                return -1;
+            } else {
+                // 同一毫秒内递增，序列号溢出时自然借用下一毫秒
+                next = cur + 1;
+            }
+            long nextTs = next >>> seqBits;
+            if (nextTs >= current.validUntil()) {
+                return -1;
+            }
+            if (state.compareAndSet(cur, next)) {
+                return ((nextTs - epochMillis) << IdConstants.WORKER_AND_SEQUENCE_BITS)
+                        | (current.workerId() << seqBits)
+                        | (next & seqMask);
+            }
+        }
+    }
+
+    /**
+     * 续约当前租约，未持有或已失效时申请新的 Worker ID
+     */
+    private void renew() {
+        try {
+            Lease current = lease;
+            AllocResult result = current == null
+                    ? remoteService.leaseWorker(bizTag, -1, 0, ttlMillis, maxWorkers)
+                    : remoteService.leaseWorker(bizTag, current.workerId(), current.expiry(), ttlMillis, maxWorkers);
+            if (result.isSuccess()) {
+                apply(current, result);
+                return;
+            }
+            if (current != null && result.getCode() == IdErrorCode.LEASE_EXPIRED.getCode()) {
+                // 租约已被回收，立即停用并重新申请
+                log.warn("[{}] Worker lease {} expired, re-acquiring", bizTag, current.workerId());
+                lease = null;
+                result = remoteService.leaseWorker(bizTag, -1, 0, ttlMillis, maxWorkers);
+                if (result.isSuccess()) {
+                    apply(null, result);
+                    return;
+                }
+            }
+            // 通信失败时保留原租约，到期前自然停用
+            log.warn("[{}] Worker lease renewal failed: {}", bizTag, result.getMessage());
+        } catch (Exception e) {
+            log.warn("[{}] Worker lease renewal failed: {}", bizTag, e.getMessage());
+        }
+    }
+
+    private void apply(Lease previous, AllocResult result) {
+        long workerId = result.getMinId();
+        long expiry = result.getMaxId();
+        if (previous == null || previous.workerId() != workerId) {
+            // 更换 Worker ID 后从下一毫秒开始，保证本实例 ID 单调递增
+            long ts = state.get() >>> seqBits;
+            state.accumulateAndGet((ts + 1) << seqBits, Math::max);
+            log.info("[{}] Leased worker id {} until {}", bizTag, workerId, expiry);
+        }
+        lease = new Lease(workerId, expiry, expiry - ttlMillis / 10);
+    }
+
+    private record Lease(long workerId, long expiry, long validUntil) {
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.vevoly.id.client.core.transport;
+
+import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.exceptions.IdErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h3>主备切换传输 (Failover Transport)</h3>
+ *
+ * <p>
+ * 按顺序持有主节点与备用节点的传输，始终使用当前活跃节点；
+ * 通信失败或节点返回 {@code NOT_LEADER} (从节点 / 已被隔离的旧主节点) 时切换到下一个节点并立即重试，
+ * 之后的请求都发往新节点，直到它也不可用。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Failover Transport.</b><br>
+ * Sticks to the active node and moves to the next one on a communication error or a
+ * NOT_LEADER reply, so a promoted standby takes over without a restart.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+public class FailoverIdTransport implements IdTransport, AutoCloseable {
+
+    private final List<IdTransport> nodes;
+    private volatile int active;
+
+    public FailoverIdTransport(List<IdTransport> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Failover nodes must not be empty");
+        }
+        this.nodes = List.copyOf(nodes);
+    }
+
+    @Override
+    public AllocResult alloc(String bizTag, int count) throws Exception {
+        return alloc(bizTag, count, null);
+    }
+
+    @Override
+    public AllocResult alloc(String bizTag, int count, String txId) throws Exception {
+        int start = active;
+        Exception error = null;
+        AllocResult last = null;
+        for (int i = 0; i < nodes.size(); i++) {
+            int idx = (start + i) % nodes.size();
+            try {
+                last = nodes.get(idx).alloc(bizTag, count, txId);
+                if (!isNotLeader(last)) {
+                    switchTo(start, idx);
+                    return last;
+                }
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+        if (last == null && error != null) {
+            throw error;
+        }
+        return last;
+    }
+
+    @Override
+    public AllocResult leaseWorker(String bizTag, long workerId, long token, long ttlMillis, int maxWorkers) throws Exception {
+        int start = active;
+        Exception error = null;
+        AllocResult last = null;
+        for (int i = 0; i < nodes.size(); i++) {
+            int idx = (start + i) % nodes.size();
+            try {
+                last = nodes.get(idx).leaseWorker(bizTag, workerId, token, ttlMillis, maxWorkers);
+                if (!isNotLeader(last)) {
+                    switchTo(start, idx);
+                    return last;
+                }
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+        if (last == null && error != null) {
+            throw error;
+        }
+        return last;
+    }
+
+    @Override
+    public Map<String, AllocResult> allocBatch(Map<String, Integer> steps) throws Exception {
+        int start = active;
+        Exception error = null;
+        Map<String, AllocResult> last = null;
+        for (int i = 0; i < nodes.size(); i++) {
+            int idx = (start + i) % nodes.size();
+            try {
+                last = nodes.get(idx).allocBatch(steps);
+                if (last.values().stream().noneMatch(FailoverIdTransport::isNotLeader)) {
+                    switchTo(start, idx);
+                    return last;
+                }
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+        if (last == null && error != null) {
+            throw error;
+        }
+        return last;
+    }
+
+    private void switchTo(int from, int to) {
+        if (from != to && active == from) {
+            active = to;
+            log.warn("[j-atomic-id-client] Failover to node #{}", to);
+        }
+    }
+
+    private static boolean isNotLeader(AllocResult result) {
+        return result != null && !result.isSuccess() && result.getCode() == IdErrorCode.NOT_LEADER.getCode();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (IdTransport transport : nodes) {
+            if (transport instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
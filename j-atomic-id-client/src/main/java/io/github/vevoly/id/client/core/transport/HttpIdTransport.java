@@ -0,0 +1,213 @@
+package io.github.vevoly.id.client.core.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.vevoly.id.api.constants.IdConstants;
+import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.protocol.IdProtocol;
+import io.github.vevoly.id.api.utils.SignatureUtils;
+import io.github.vevoly.id.client.config.IdClientProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * <h3>HTTP 传输实现 (HTTP Transport)</h3>
+ *
+ * <p>
+ * 通过 RestTemplate 调用服务端 {@code /id/alloc} 与 {@code /id/alloc/batch}，并附带签名 Header。
+ * 单号段申请默认优先接收二进制响应 ({@value IdProtocol#BINARY_MEDIA_TYPE})，按响应的 Content-Type 解码，
+ * 不修改调用方传入的 RestTemplate 的转换器配置。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>HTTP Transport.</b><br>
+ * Calls {@code /id/alloc} and {@code /id/alloc/batch} through RestTemplate with signed headers.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+public class HttpIdTransport implements IdTransport {
+
+    private final RestTemplate restTemplate;
+    private final IdClientProperties properties;
+    private final String serverUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final MediaType BINARY = MediaType.parseMediaType(IdProtocol.BINARY_MEDIA_TYPE);
+
+    public HttpIdTransport(RestTemplate restTemplate, IdClientProperties properties) {
+        this(restTemplate, properties, properties.getServerUrl());
+    }
+
+    /**
+     * 指定服务端地址 (集群模式下每个节点一个实例)
+     */
+    public HttpIdTransport(RestTemplate restTemplate, IdClientProperties properties, String serverUrl) {
+        this.restTemplate = restTemplate;
+        this.properties = properties;
+        this.serverUrl = serverUrl;
+    }
+
+    @Override
+    public AllocResult alloc(String bizTag, int count) {
+        return alloc(bizTag, count, null);
+    }
+
+    @Override
+    public AllocResult alloc(String bizTag, int count, String txId) {
+        // 1. 准备待签名参数
+        String countParam = String.valueOf(count);
+        // 2. 构建 URL: http://localhost:8090/id/alloc?tag=order&count=1000&txId=xxx
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(serverUrl)
+                .path("/id/alloc")
+                .queryParam("tag", bizTag)
+                .queryParam("count", countParam);
+        // 3. 构建签名 Header (txId 一并签名)
+        HttpHeaders headers;
+        if (txId == null) {
+            headers = signHeaders("tag", bizTag, "count", countParam);
+        } else {
+            builder.queryParam("txId", txId);
+            headers = signHeaders("tag", bizTag, "count", countParam, "txId", txId);
+        }
+
+        try {
+            // 4. 执行请求
+            return exchangeResult(builder.toUriString(), headers);
+        } catch (HttpServerErrorException | HttpClientErrorException.TooManyRequests e) {
+            return parseErrorBody(e);
+        }
+    }
+
+    @Override
+    public AllocResult leaseWorker(String bizTag, long workerId, long token, long ttlMillis, int maxWorkers) {
+        String workerParam = String.valueOf(workerId);
+        String tokenParam = String.valueOf(token);
+        String ttlParam = String.valueOf(ttlMillis);
+        String maxParam = String.valueOf(maxWorkers);
+        // URL: http://localhost:8090/id/worker/lease?tag=order&workerId=-1&token=0&ttlMs=30000&maxWorkers=256
+        String url = UriComponentsBuilder.fromHttpUrl(serverUrl)
+                .path("/id/worker/lease")
+                .queryParam("tag", bizTag)
+                .queryParam("workerId", workerParam)
+                .queryParam("token", tokenParam)
+                .queryParam("ttlMs", ttlParam)
+                .queryParam("maxWorkers", maxParam)
+                .toUriString();
+        HttpHeaders headers = signHeaders("tag", bizTag, "workerId", workerParam,
+                "token", tokenParam, "ttlMs", ttlParam, "maxWorkers", maxParam);
+        try {
+            return exchangeResult(url, headers);
+        } catch (HttpServerErrorException | HttpClientErrorException.TooManyRequests e) {
+            return parseErrorBody(e);
+        }
+    }
+
+    @Override
+    public Map<String, AllocResult> allocBatch(Map<String, Integer> steps) {
+        String tags = String.join(",", steps.keySet());
+        String counts = steps.values().stream().map(String::valueOf).collect(Collectors.joining(","));
+        // 1. 待签名参数: 逗号拼接后作为单个参数签名
+        // 2. 构建 URL: http://localhost:8090/id/alloc/batch?tags=order,user&counts=1000,500
+        String url = UriComponentsBuilder.fromHttpUrl(serverUrl)
+                .path("/id/alloc/batch")
+                .queryParam("tags", tags)
+                .queryParam("counts", counts)
+                .toUriString();
+        HttpEntity<Void> entity = new HttpEntity<>(signHeaders("tags", tags, "counts", counts));
+
+        AllocResult[] body = restTemplate.exchange(url, HttpMethod.POST, entity, AllocResult[].class).getBody();
+        if (body == null || body.length != steps.size()) {
+            throw new IllegalStateException("Server returned unexpected batch response");
+        }
+        Map<String, AllocResult> results = new LinkedHashMap<>();
+        int i = 0;
+        for (String tag : steps.keySet()) {
+            results.put(tag, body[i++]);
+        }
+        return results;
+    }
+
+    /**
+     * 执行单结果请求：以 byte[] 接收响应体，按 Content-Type 选择二进制或 JSON 解码
+     */
+    private AllocResult exchangeResult(String url, HttpHeaders headers) {
+        if (properties.isBinaryResponse()) {
+            headers.setAccept(List.of(BINARY, MediaType.APPLICATION_JSON));
+        } else {
+            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        }
+        ResponseEntity<byte[]> response = restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(headers), byte[].class);
+        byte[] body = response.getBody();
+        if (body == null) {
+            return null;
+        }
+        MediaType contentType = response.getHeaders().getContentType();
+        try {
+            if (contentType != null && BINARY.isCompatibleWith(contentType)) {
+                return IdProtocol.decodeResult(body);
+            }
+            return objectMapper.readValue(body, AllocResult.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Server returned malformed AllocResult (" + contentType + ")", e);
+        }
+    }
+
+    /**
+     * 构建鉴权 Header
+     */
+    private HttpHeaders signHeaders(String... params) {
+        HttpHeaders headers = new HttpHeaders();
+        long now = System.currentTimeMillis();
+        String timestamp = String.valueOf(now);
+        headers.set("X-App-Key", properties.getAppKey());
+        headers.set("X-Timestamp", timestamp);
+        // 截止时间：服务端按 X-Deadline - X-Timestamp 的预算丢弃调用方已放弃等待的请求，两个 Header 一并签名
+        long deadline = properties.getDeadline().toMillis();
+        if (deadline > 0) {
+            String deadlineAt = String.valueOf(now + deadline);
+            headers.set(IdConstants.DEADLINE_HEADER, deadlineAt);
+            String[] signed = Arrays.copyOf(params, params.length + 4);
+            signed[params.length] = IdConstants.DEADLINE_HEADER;
+            signed[params.length + 1] = deadlineAt;
+            signed[params.length + 2] = "X-Timestamp";
+            signed[params.length + 3] = timestamp;
+            params = signed;
+        }
+        headers.set("X-Signature", SignatureUtils.sign(properties.getAppSecret(), params));
+        return headers;
+    }
+
+    /**
+     * 尝试解析服务端返回的错误 JSON
+     */
+    private AllocResult parseErrorBody(HttpStatusCodeException e) {
+        String body = e.getResponseBodyAsString();
+        try {
+            log.warn("[j-atomic-id-client] Server returned error: {}", body);
+            AllocResult allocResult = objectMapper.readValue(body, AllocResult.class);
+            return AllocResult.fail(allocResult.getCode(), allocResult.getMessage());
+        } catch (Exception parseEx) {
+            // 如果 JSON 解析失败 (比如 Nginx 返回了 HTML)，返回通用的 HTTP 错误
+            log.warn("[j-atomic-id-client] Failed to parse error body: {}", body, parseEx);
+            return AllocResult.fail(e.getStatusCode().value(), "HTTP Error: " + e.getStatusText());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.vevoly.id.client.core.transport;
+
+import io.github.vevoly.id.api.domain.AllocResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <h3>传输层接口 (Transport SPI)</h3>
+ *
+ * <p>
+ * 负责把一次 ID 申请发送到服务端并取回结果。重试、降级等策略由 {@link io.github.vevoly.id.client.core.IdRemoteService} 统一处理，
+ * 实现类只需关心协议本身。通信失败时直接抛出异常即可。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Transport SPI.</b><br>
+ * Sends a single allocation request to the server. Retries are handled by IdRemoteService;
+ * implementations just throw on communication failure.
+ * </span>
+ *
+ * @author vevoly
+ */
+public interface IdTransport {
+
+    /**
+     * 申请 ID 号段
+     *
+     * @param bizTag 业务标识
+     * @param count  申请数量
+     * @return 服务端返回的结果 (可能是失败结果)
+     * @throws Exception 通信失败
+     */
+    AllocResult alloc(String bizTag, int count) throws Exception;
+
+    /**
+     * 携带事务 ID 申请号段：服务端对同一 txId 的重试返回首次的结果，不会重复分配。
+     * 默认忽略 txId (不支持幂等的传输)。
+     *
+     * @param bizTag 业务标识
+     * @param count  申请数量
+     * @param txId   事务 ID，同一次逻辑申请的所有重试保持不变，可为 null
+     * @return 申请结果
+     * @throws Exception 通信失败
+     */
+    default AllocResult alloc(String bizTag, int count, String txId) throws Exception {
+        return alloc(bizTag, count);
+    }
+
+    /**
+     * 批量申请多个 Tag 的号段，默认逐个调用 {@link #alloc(String, int)}
+     *
+     * @param steps Key: bizTag, Value: 申请数量
+     * @return Key: bizTag, Value: 申请结果，顺序与入参一致
+     * @throws Exception 通信失败
+     */
+    default Map<String, AllocResult> allocBatch(Map<String, Integer> steps) throws Exception {
+        Map<String, AllocResult> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : steps.entrySet()) {
+            results.put(entry.getKey(), alloc(entry.getKey(), entry.getValue()));
+        }
+        return results;
+    }
+
+    /**
+     * 申请或续约 Worker ID 租约 (TIME_LEASED 模式)。
+     * 服务端不支持时返回失败结果而不是抛出异常，由 TIME_LEASED 生成器降级为号段模式
+     *
+     * @param bizTag     业务标识
+     * @param workerId   续约的 Worker ID，-1 表示申请新的
+     * @param token      续约凭证 (上次返回的到期时间)
+     * @param ttlMillis  租约时长
+     * @param maxWorkers Worker ID 上限 (不含)
+     * @return 成功时 minId 为 Worker ID，maxId 为到期时间
+     * @throws Exception 通信失败
+     */
+    AllocResult leaseWorker(String bizTag, long workerId, long token, long ttlMillis, int maxWorkers) throws Exception;
+}
@@ -0,0 +1,117 @@
+package io.github.vevoly.id.client.core.transport;
+
+import io.github.vevoly.id.api.domain.AllocResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h3>交错号段传输 (Interleaved Transport)</h3>
+ *
+ * <p>
+ * 交错号段模式的 Tag 由多个互不协调的服务实例共同服务 (每个实例只分配属于自己的块)，
+ * 因此每次补充号段时轮询各实例；某个实例通信失败或返回失败结果时依次尝试下一个，
+ * 单个实例宕机只损失容量。其余 Tag 交给原有传输处理。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Interleaved Transport.</b><br>
+ * Spreads refills of interleaved tags round-robin across independent server instances,
+ * failing over to the next instance on error. Other tags use the default transport.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+public class InterleavedIdTransport implements IdTransport, AutoCloseable {
+
+    private final IdTransport delegate;
+    private final Set<String> tags;
+    private final List<IdTransport> instances;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    /**
+     * @param delegate  非交错 Tag 使用的传输
+     * @param tags      交错号段模式的 Tag
+     * @param instances 各服务实例的传输
+     */
+    public InterleavedIdTransport(IdTransport delegate, Set<String> tags, List<IdTransport> instances) {
+        if (instances.isEmpty()) {
+            throw new IllegalArgumentException("Interleave servers must not be empty");
+        }
+        this.delegate = delegate;
+        this.tags = Set.copyOf(tags);
+        this.instances = List.copyOf(instances);
+    }
+
+    @Override
+    public AllocResult alloc(String bizTag, int count) throws Exception {
+        return alloc(bizTag, count, null);
+    }
+
+    @Override
+    public AllocResult alloc(String bizTag, int count, String txId) throws Exception {
+        if (!tags.contains(bizTag)) {
+            return delegate.alloc(bizTag, count, txId);
+        }
+        int start = Math.floorMod(cursor.getAndIncrement(), instances.size());
+        AllocResult last = null;
+        Exception error = null;
+        for (int i = 0; i < instances.size(); i++) {
+            int idx = (start + i) % instances.size();
+            try {
+                last = instances.get(idx).alloc(bizTag, count, txId);
+                if (last != null && last.isSuccess()) {
+                    return last;
+                }
+            } catch (Exception e) {
+                error = e;
+            }
+            log.warn("[j-atomic-id-client] Interleaved instance #{} unavailable for tag: {}", idx, bizTag);
+        }
+        if (last == null && error != null) {
+            throw error;
+        }
+        return last;
+    }
+
+    @Override
+    public AllocResult leaseWorker(String bizTag, long workerId, long token, long ttlMillis, int maxWorkers) throws Exception {
+        // 交错实例之间不共享租约状态，租约统一由默认传输处理
+        return delegate.leaseWorker(bizTag, workerId, token, ttlMillis, maxWorkers);
+    }
+
+    @Override
+    public Map<String, AllocResult> allocBatch(Map<String, Integer> steps) throws Exception {
+        Map<String, Integer> others = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : steps.entrySet()) {
+            if (!tags.contains(entry.getKey())) {
+                others.put(entry.getKey(), entry.getValue());
+            }
+        }
+        Map<String, AllocResult> delegated = others.isEmpty() ? Map.of() : delegate.allocBatch(others);
+        Map<String, AllocResult> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : steps.entrySet()) {
+            String tag = entry.getKey();
+            results.put(tag, tags.contains(tag) ? alloc(tag, entry.getValue()) : delegated.get(tag));
+        }
+        return results;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (IdTransport transport : instances) {
+            if (transport instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.vevoly.id.client.core.transport;
+
+import io.github.vevoly.id.api.cluster.ConsistentHashRing;
+import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.exceptions.IdErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * <h3>集群路由传输 (Cluster Routing Transport)</h3>
+ *
+ * <p>
+ * 按一致性哈希把每个 Tag 发送到归属节点，每个节点各持有一个底层 {@link IdTransport}。
+ * 节点返回 {@code NOT_OWNER} 时 (客户端成员配置过期)，按结果中的归属地址重试一次，
+ * 并记住该 Tag 的新归属节点，后续请求直接发往新节点。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Cluster Routing Transport.</b><br>
+ * Routes each tag to its owner node by consistent hashing and follows redirect hints
+ * from nodes that do not own the tag.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+public class RoutingIdTransport implements IdTransport, AutoCloseable {
+
+    private final ConsistentHashRing ring;
+
+    // Key: 节点地址
+    private final Map<String, IdTransport> transports = new ConcurrentHashMap<>();
+    private final Function<String, IdTransport> transportFactory;
+
+    // 服务端重定向过的 Tag -> 节点地址
+    private final Map<String, String> redirects = new ConcurrentHashMap<>();
+
+    /**
+     * @param ring             集群成员
+     * @param transportFactory 根据节点地址创建底层传输
+     */
+    public RoutingIdTransport(ConsistentHashRing ring, Function<String, IdTransport> transportFactory) {
+        this.ring = ring;
+        this.transportFactory = transportFactory;
+    }
+
+    @Override
+    public AllocResult alloc(String bizTag, int count) throws Exception {
+        return alloc(bizTag, count, null);
+    }
+
+    @Override
+    public AllocResult alloc(String bizTag, int count, String txId) throws Exception {
+        String address = addressOf(bizTag);
+        AllocResult result = transportOf(address).alloc(bizTag, count, txId);
+        String redirect = redirectOf(result, address);
+        if (redirect != null) {
+            redirects.put(bizTag, redirect);
+            result = transportOf(redirect).alloc(bizTag, count, txId);
+        }
+        return result;
+    }
+
+    @Override
+    public AllocResult leaseWorker(String bizTag, long workerId, long token, long ttlMillis, int maxWorkers) throws Exception {
+        String address = addressOf(bizTag);
+        AllocResult result = transportOf(address).leaseWorker(bizTag, workerId, token, ttlMillis, maxWorkers);
+        String redirect = redirectOf(result, address);
+        if (redirect != null) {
+            redirects.put(bizTag, redirect);
+            result = transportOf(redirect).leaseWorker(bizTag, workerId, token, ttlMillis, maxWorkers);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, AllocResult> allocBatch(Map<String, Integer> steps) throws Exception {
+        // 1. 按归属节点分组，每个节点一次往返
+        Map<String, Map<String, Integer>> groups = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : steps.entrySet()) {
+            groups.computeIfAbsent(addressOf(entry.getKey()), k -> new LinkedHashMap<>())
+                    .put(entry.getKey(), entry.getValue());
+        }
+        Map<String, AllocResult> merged = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> group : groups.entrySet()) {
+            merged.putAll(transportOf(group.getKey()).allocBatch(group.getValue()));
+        }
+
+        // 2. 按入参顺序汇总，被重定向的 Tag 单独重试
+        Map<String, AllocResult> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : steps.entrySet()) {
+            String tag = entry.getKey();
+            AllocResult result = merged.get(tag);
+            if (redirectOf(result, addressOf(tag)) != null) {
+                result = alloc(tag, entry.getValue());
+            }
+            results.put(tag, result);
+        }
+        return results;
+    }
+
+    private String addressOf(String bizTag) {
+        String redirect = redirects.get(bizTag);
+        return redirect != null ? redirect : ring.addressOf(ring.ownerOf(bizTag));
+    }
+
+    private IdTransport transportOf(String address) {
+        return transports.computeIfAbsent(address, transportFactory);
+    }
+
+    /**
+     * 解析重定向提示：NOT_OWNER 且指向另一个节点时返回该节点地址
+     */
+    private String redirectOf(AllocResult result, String current) {
+        if (result == null || result.isSuccess() || result.getCode() != IdErrorCode.NOT_OWNER.getCode()) {
+            return null;
+        }
+        String owner = result.getMessage();
+        if (owner == null || owner.isEmpty() || owner.equals(current)) {
+            return null;
+        }
+        log.info("[j-atomic-id-client] Redirect {} -> {}", current, owner);
+        return owner;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (IdTransport transport : transports.values()) {
+            if (transport instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package io.github.vevoly.id.client.core.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.vevoly.id.api.constants.IdConstants;
+import io.github.vevoly.id.api.domain.PushedSegment;
+import io.github.vevoly.id.api.utils.SignatureUtils;
+import io.github.vevoly.id.client.config.IdClientProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * <h3>号段推送订阅者 (Segment Subscriber)</h3>
+ *
+ * <p>
+ * 与服务端 {@code GET /id/subscribe} 保持一条 SSE 长连接，收到的号段交给回调处理；
+ * 客户端开始消费某个推送号段时调用 {@link #ack(String)}，服务端随即推送该 Tag 的下一个号段。
+ * 连接断开或订阅失效后按 reconnectInterval 重连，期间号段缓冲自动回退到主动拉取。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Segment Subscriber.</b><br>
+ * Keeps one server-sent event stream open and hands pushed segments to a callback.
+ * Reconnects after failures; segment buffers fall back to polling meanwhile.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+public class SegmentSubscriber {
+
+    private final IdClientProperties properties;
+    private final Map<String, Integer> steps;
+    private final Consumer<PushedSegment> listener;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 当前订阅 ID，未连接时为 null
+    private volatile String subscriptionId;
+    // 当前连接的响应流，订阅失效时关闭以触发重连
+    private volatile InputStream stream;
+
+    public SegmentSubscriber(IdClientProperties properties, Map<String, Integer> steps, Consumer<PushedSegment> listener) {
+        this.properties = properties;
+        this.steps = Map.copyOf(steps);
+        this.listener = listener;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(3))
+                .build();
+    }
+
+    /**
+     * 启动后台订阅线程
+     */
+    public void start() {
+        Thread thread = new Thread(this::run, "j-atomic-id-subscriber");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 确认开始消费 Tag 的上一个推送号段 (异步，不阻塞取号)
+     */
+    public void ack(String bizTag) {
+        String id = subscriptionId;
+        if (id == null) {
+            return;
+        }
+        URI uri = UriComponentsBuilder.fromHttpUrl(properties.getServerUrl())
+                .path("/id/subscribe/ack")
+                .queryParam("subscription", id)
+                .queryParam("tag", bizTag)
+                .build().toUri();
+        HttpRequest request = signed(HttpRequest.newBuilder(uri), "subscription", id, "tag", bizTag)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofSeconds(3))
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+            if (e != null) {
+                log.warn("[{}] Push ack failed: {}", bizTag, e.getMessage());
+            } else if (response.statusCode() == 404) {
+                // 服务端已不认识该订阅，断开重连
+                log.warn("[j-atomic-id-client] Subscription {} expired, reconnecting", id);
+                closeStream();
+            }
+        });
+    }
+
+    private void run() {
+        long reconnectMillis = properties.getPush().getReconnectInterval().toMillis();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                consume();
+            } catch (Exception e) {
+                log.warn("[j-atomic-id-client] Segment subscription lost: {}", e.getMessage());
+            } finally {
+                subscriptionId = null;
+                closeStream();
+            }
+            try {
+                Thread.sleep(reconnectMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 建立一次订阅并逐个处理事件，直到连接结束
+     */
+    private void consume() throws Exception {
+        String tags = String.join(",", steps.keySet());
+        String stepsParam = steps.values().stream().map(String::valueOf).collect(Collectors.joining(","));
+        URI uri = UriComponentsBuilder.fromHttpUrl(properties.getServerUrl())
+                .path("/id/subscribe")
+                .queryParam("tags", tags)
+                .queryParam("steps", stepsParam)
+                .build().toUri();
+        HttpRequest request = signed(HttpRequest.newBuilder(uri), "tags", tags, "steps", stepsParam)
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        stream = response.body();
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        String event = null;
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                // 空行：一个事件结束
+                dispatch(event, data.toString());
+                event = null;
+                data.setLength(0);
+            } else if (line.startsWith("event:")) {
+                event = line.substring(6).trim();
+            } else if (line.startsWith("data:")) {
+                if (!data.isEmpty()) {
+                    data.append('\n');
+                }
+                data.append(line.substring(5).trim());
+            }
+        }
+    }
+
+    private void dispatch(String event, String data) throws Exception {
+        if (IdConstants.PUSH_EVENT_SUBSCRIBED.equals(event)) {
+            subscriptionId = data;
+            log.info("[j-atomic-id-client] Subscribed to segment push for {} tags", steps.size());
+        } else if (IdConstants.PUSH_EVENT_SEGMENT.equals(event)) {
+            listener.accept(objectMapper.readValue(data, PushedSegment.class));
+        }
+    }
+
+    private HttpRequest.Builder signed(HttpRequest.Builder builder, String... params) {
+        return builder
+                .header("X-App-Key", properties.getAppKey())
+                .header("X-Timestamp", String.valueOf(System.currentTimeMillis()))
+                .header("X-Signature", SignatureUtils.sign(properties.getAppSecret(), params));
+    }
+
+    private void closeStream() {
+        InputStream current = stream;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (Exception ignored) {
+                // 连接已断开
+            }
+        }
+    }
+}
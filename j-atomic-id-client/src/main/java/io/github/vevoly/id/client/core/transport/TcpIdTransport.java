@@ -0,0 +1,204 @@
+package io.github.vevoly.id.client.core.transport;
+
+import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.exceptions.IdException;
+import io.github.vevoly.id.api.protocol.IdProtocol;
+import io.github.vevoly.id.api.utils.SignatureUtils;
+import io.github.vevoly.id.client.config.IdClientProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h3>二进制 TCP 传输实现 (Binary TCP Transport)</h3>
+ *
+ * <p>
+ * 所有调用线程共享一条长连接，请求以 Pipeline 方式连续写出，由独立读线程按 {@code requestId} 匹配响应。
+ * 连接断开后，挂起中的请求全部失败，下一次调用时自动重连并重新鉴权。
+ * 申请帧携带 txId，重试时服务端返回首次的号段，不会因重试重复分配。
+ * Worker ID 租约 (TIME_LEASED 模式) 通过 LEASE 帧在同一连接上申请 / 续约。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Binary TCP Transport.</b><br>
+ * All caller threads share one persistent connection. Requests are pipelined and responses are
+ * matched by {@code requestId} on a dedicated reader thread. Reconnects lazily after a failure.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+public class TcpIdTransport implements IdTransport, Closeable {
+
+    private final IdClientProperties properties;
+    private final String host;
+    private final int port;
+    private final AtomicLong requestIds = new AtomicLong();
+
+    // 已发出、等待响应的请求
+    private final Map<Long, CompletableFuture<AllocResult>> pending = new ConcurrentHashMap<>();
+
+    private volatile Socket socket;
+    private DataOutputStream out;
+
+    public TcpIdTransport(IdClientProperties properties) {
+        this(properties, properties.getTcp().getHost(), properties.getTcp().getPort());
+    }
+
+    /**
+     * 指定服务端地址 (集群模式下每个节点一个实例)
+     */
+    public TcpIdTransport(IdClientProperties properties, String host, int port) {
+        this.properties = properties;
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public AllocResult alloc(String bizTag, int count) throws Exception {
+        return alloc(bizTag, count, null);
+    }
+
+    @Override
+    public AllocResult alloc(String bizTag, int count, String txId) throws Exception {
+        return send((output, requestId) -> IdProtocol.writeAlloc(output, requestId, bizTag, count, txId)).get();
+    }
+
+    @Override
+    public AllocResult leaseWorker(String bizTag, long workerId, long token, long ttlMillis, int maxWorkers) throws Exception {
+        return send((output, requestId) -> IdProtocol.writeLease(output, requestId, bizTag, workerId, token, ttlMillis, maxWorkers)).get();
+    }
+
+    @Override
+    public Map<String, AllocResult> allocBatch(Map<String, Integer> steps) throws Exception {
+        // 先全部写出 (Pipeline)，再依次等待
+        Map<String, CompletableFuture<AllocResult>> futures = new LinkedHashMap<>();
+        steps.forEach((tag, count) -> futures.put(tag, send((output, requestId) -> IdProtocol.writeAlloc(output, requestId, tag, count))));
+        Map<String, AllocResult> results = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<AllocResult>> entry : futures.entrySet()) {
+            results.put(entry.getKey(), entry.getValue().get());
+        }
+        return results;
+    }
+
+    private CompletableFuture<AllocResult> send(RequestWriter writer) {
+        long requestId = requestIds.incrementAndGet();
+        CompletableFuture<AllocResult> future = new CompletableFuture<>();
+        pending.put(requestId, future);
+        try {
+            synchronized (this) {
+                ensureConnected();
+                writer.write(out, requestId);
+                out.flush();
+            }
+        } catch (IOException e) {
+            pending.remove(requestId);
+            disconnect(e);
+            future.completeExceptionally(e);
+        } catch (RuntimeException e) {
+            pending.remove(requestId);
+            future.completeExceptionally(e);
+        }
+        // 超时后从挂起表中移除，避免泄漏
+        return future.orTimeout(properties.getTcp().getRequestTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, ex) -> pending.remove(requestId));
+    }
+
+    /**
+     * 建立连接并完成鉴权 (调用方持有 this 锁)
+     */
+    private void ensureConnected() throws IOException {
+        if (socket != null) {
+            return;
+        }
+        IdClientProperties.Tcp tcp = properties.getTcp();
+        Socket s = new Socket();
+        s.setTcpNoDelay(true);
+        s.connect(new InetSocketAddress(host, port), (int) tcp.getConnectTimeout().toMillis());
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+        DataInputStream input = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+
+        // 鉴权握手 (同步)
+        long timestamp = System.currentTimeMillis();
+        Map<String, String> params = Map.of(
+                "appKey", properties.getAppKey(),
+                "timestamp", String.valueOf(timestamp));
+        IdProtocol.writeAuth(output, 0, properties.getAppKey(), timestamp,
+                SignatureUtils.sign(properties.getAppSecret(), params));
+        output.flush();
+        s.setSoTimeout((int) tcp.getConnectTimeout().toMillis());
+        AllocResult auth = IdProtocol.readFrame(input, new IdProtocol.Frame()).result;
+        s.setSoTimeout(0);
+        if (auth == null || !auth.isSuccess()) {
+            s.close();
+            throw new IdException(auth != null ? auth.getCode() : 500, "TCP authentication failed: " + (auth != null ? auth.getMessage() : "no response"));
+        }
+
+        this.socket = s;
+        this.out = output;
+        Thread reader = new Thread(() -> readLoop(s, input), "j-atomic-id-tcp-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+        log.info("[j-atomic-id-client] TCP connected to {}:{}", host, port);
+    }
+
+    private void readLoop(Socket s, DataInputStream in) {
+        IdProtocol.Frame frame = new IdProtocol.Frame();
+        try {
+            while (socket == s) {
+                IdProtocol.readFrame(in, frame);
+                CompletableFuture<AllocResult> future = pending.remove(frame.requestId);
+                if (future != null && frame.type == IdProtocol.TYPE_RESULT) {
+                    future.complete(frame.result);
+                }
+            }
+        } catch (IOException e) {
+            if (socket == s) {
+                disconnect(e);
+            }
+        }
+    }
+
+    private synchronized void disconnect(Exception cause) {
+        if (socket == null) {
+            return;
+        }
+        log.warn("[j-atomic-id-client] TCP connection lost: {}", cause.getMessage());
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+        socket = null;
+        out = null;
+        // 挂起的请求全部失败，交给上层重试
+        pending.values().forEach(f -> f.completeExceptionally(cause));
+        pending.clear();
+    }
+
+    @Override
+    public void close() {
+        disconnect(new IOException("Transport closed"));
+    }
+
+    /**
+     * 写出一个请求帧 (调用方持有 this 锁)
+     */
+    @FunctionalInterface
+    private interface RequestWriter {
+        void write(DataOutputStream out, long requestId) throws IOException;
+    }
+}
@@ -1,17 +1,31 @@
 package io.github.vevoly.id.client.starter;
 
+import io.github.vevoly.id.api.cluster.ConsistentHashRing;
 import io.github.vevoly.id.client.config.IdClientProperties;
+import io.github.vevoly.id.client.config.IdTransportType;
 import io.github.vevoly.id.client.core.IdRemoteService;
 import io.github.vevoly.id.client.core.generator.IdGenerator;
 import io.github.vevoly.id.client.core.generator.SmartIdGenerator;
+import io.github.vevoly.id.client.core.transport.FailoverIdTransport;
+import io.github.vevoly.id.client.core.transport.HttpIdTransport;
+import io.github.vevoly.id.client.core.transport.IdTransport;
+import io.github.vevoly.id.client.core.transport.InterleavedIdTransport;
+import io.github.vevoly.id.client.core.transport.RoutingIdTransport;
+import io.github.vevoly.id.client.core.transport.TcpIdTransport;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * <h3>客户端自动装配类 (Client Auto-Configuration)</h3>
@@ -47,13 +61,62 @@ public class JAtomicIdClientAutoConfiguration {
                 .build();
     }
 
+    /**
+     * 初始化传输层 (Transport).
+     * <p>
+     * 根据 {@code j-atomic-id.client.transport} 选择 HTTP 或二进制 TCP，用户也可以自定义 {@link IdTransport} Bean 替换。
+     * 配置了集群节点时，按一致性哈希路由到各节点；交错号段的 Tag 在各实例间轮询。
+     * </p>
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public IdTransport idTransport(RestTemplate restTemplate, IdClientProperties properties) {
+        // 根据服务端地址创建单节点传输
+        Function<String, IdTransport> factory = address -> {
+            if (properties.getTransport() == IdTransportType.TCP) {
+                String host = UriComponentsBuilder.fromHttpUrl(address).build().getHost();
+                return new TcpIdTransport(properties, host, properties.getTcp().getPort());
+            }
+            return new HttpIdTransport(restTemplate, properties, address);
+        };
+
+        IdTransport transport;
+        IdClientProperties.Cluster cluster = properties.getCluster();
+        if (cluster.isEnabled()) {
+            Map<String, String> nodes = cluster.getNodesFile() != null && !cluster.getNodesFile().isEmpty()
+                    ? ConsistentHashRing.readNodes(cluster.getNodesFile())
+                    : cluster.getNodes();
+            transport = new RoutingIdTransport(new ConsistentHashRing(nodes, cluster.getVirtualNodes()), factory);
+        } else if (!properties.getStandbyUrls().isEmpty()) {
+            // 主从热备：主节点在前，备用节点依次在后
+            List<IdTransport> nodes = new ArrayList<>();
+            nodes.add(properties.getTransport() == IdTransportType.TCP
+                    ? new TcpIdTransport(properties)
+                    : new HttpIdTransport(restTemplate, properties));
+            properties.getStandbyUrls().stream().map(factory).forEach(nodes::add);
+            transport = new FailoverIdTransport(nodes);
+        } else if (properties.getTransport() == IdTransportType.TCP) {
+            transport = new TcpIdTransport(properties);
+        } else {
+            transport = new HttpIdTransport(restTemplate, properties);
+        }
+
+        // 交错号段的 Tag 在多个实例间轮询
+        IdClientProperties.Interleave interleave = properties.getInterleave();
+        if (interleave.isEnabled()) {
+            List<IdTransport> instances = interleave.getServers().stream().map(factory).toList();
+            transport = new InterleavedIdTransport(transport, new HashSet<>(interleave.getTags()), instances);
+        }
+        return transport;
+    }
+
     /**
      * 初始化远程服务 (Remote Service).
      */
     @Bean
     @ConditionalOnMissingBean
-    public IdRemoteService idRemoteService(RestTemplate restTemplate, IdClientProperties properties) {
-        return new IdRemoteService(restTemplate, properties);
+    public IdRemoteService idRemoteService(IdTransport idTransport) {
+        return new IdRemoteService(idTransport);
     }
 
     /**
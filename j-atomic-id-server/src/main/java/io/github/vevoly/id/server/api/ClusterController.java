@@ -0,0 +1,68 @@
+package io.github.vevoly.id.server.api;
+
+import io.github.vevoly.id.api.cluster.ConsistentHashRing;
+import io.github.vevoly.id.api.exceptions.IdErrorCode;
+import io.github.vevoly.id.api.exceptions.IdException;
+import io.github.vevoly.id.server.cluster.ClusterRouter;
+import io.github.vevoly.id.server.replication.ReplicationFeed;
+import io.github.vevoly.id.server.service.IdAllocService;
+import io.github.vevoly.id.server.service.IdProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分片集群接口 (只接受 {@code admin} 管理凭证，见 {@link io.github.vevoly.id.server.interceptor.AuthInterceptor})
+ * <ul>
+ *     <li>成员变更: 把新成员环中属于请求节点的 Tag 移交出去 (handover)</li>
+ * </ul>
+ */
+@Slf4j
+@RestController
+@RequestMapping("/cluster")
+public class ClusterController {
+
+    @Autowired
+    private ClusterRouter router;
+
+    @Autowired
+    private IdAllocService allocService;
+
+    /**
+     * 移交 Tag：先停止服务新成员环中属于 node 的 Tag，再返回它们的 MaxId
+     * URL: POST /cluster/handover?node=node-2&nodes=node-1=http://a:8090,node-2=http://b:8090&virtualNodes=128
+     */
+    @PostMapping("/handover")
+    public List<ReplicationFeed.Change> handover(@RequestParam("node") String node,
+                                                 @RequestParam("nodes") String nodes,
+                                                 @RequestParam(value = "virtualNodes", defaultValue = "128") int virtualNodes) {
+        Map<String, String> members = new LinkedHashMap<>();
+        for (String member : nodes.split(",")) {
+            int eq = member.indexOf('=');
+            if (eq <= 0) {
+                throw new IdException(IdErrorCode.INVALID_PARAMS.getCode(), IdErrorCode.INVALID_PARAMS.getMessage());
+            }
+            members.put(member.substring(0, eq).trim(), member.substring(eq + 1).trim());
+        }
+        ConsistentHashRing target;
+        try {
+            target = router.release(node, members, virtualNodes);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IdException(IdErrorCode.INVALID_PARAMS.getCode(), e.getMessage());
+        }
+        // 停止服务之后再读取：此前进入引擎的申请都已反映在 MaxId 中 (移交瞬间仍在提交途中的由接管方的 gap 覆盖)
+        List<ReplicationFeed.Change> released = new ArrayList<>();
+        for (ReplicationFeed.Change change : allocService.snapshot()) {
+            if (node.equals(target.ownerOf(IdProcessor.bizTagOf(change.bizTag())))) {
+                released.add(change);
+            }
+        }
+        log.info("<<< 已向 {} 移交 {} 个 Tag", node, released.size());
+        return released;
+    }
+}
@@ -1,20 +1,24 @@
 package io.github.vevoly.id.server.api;
 
-import io.github.vevoly.id.api.domain.AllocCommand;
+import io.github.vevoly.id.api.constants.IdConstants;
 import io.github.vevoly.id.api.domain.AllocResult;
 import io.github.vevoly.id.api.exceptions.IdErrorCode;
-import io.github.vevoly.id.server.domain.IdGeneratorEntity;
-import io.github.vevoly.id.server.domain.IdState;
-import io.github.vevoly.ledger.core.LedgerEngine;
+import io.github.vevoly.id.api.exceptions.IdException;
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.service.IdAllocService;
+import io.github.vevoly.id.server.service.SegmentPushService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @RestController
@@ -22,49 +26,143 @@ import java.util.concurrent.TimeoutException;
 public class IdController {
 
     @Autowired
-    private LedgerEngine<IdState, AllocCommand, IdGeneratorEntity> engine;
+    private IdAllocService allocService;
+
+    @Autowired
+    private SegmentPushService pushService;
+
+    @Autowired
+    private IdServerProperties properties;
 
     /**
      * 申请 ID (核心接口)
-     * URL: POST /id/alloc?tag=order&count=100
+     * URL: POST /id/alloc?tag=order&count=100&txId=xxx
+     * <p>
+     * 返回引擎的 {@link CompletableFuture}，由 Spring MVC 以异步请求处理，
+     * 等待引擎期间不占用 Tomcat 工作线程。
+     * 携带 txId 时，同一 txId 的重试返回首次申请的号段；
+     * 携带 {@code X-Deadline} (epoch 毫秒) 时，超过截止时间的请求不再分配，返回 DEADLINE_EXCEEDED
+     * (截止时间按 {@link #localDeadline} 换算到服务端时钟)。
+     * </p>
      */
     @PostMapping("/alloc")
-    public AllocResult alloc(@RequestParam(value = "tag") String tag,
-                             @RequestParam(value = "count", defaultValue = "1") int count) {
-        // 1. 构建命令
-        AllocCommand cmd = new AllocCommand();
-        cmd.setTxId(UUID.randomUUID().toString());
-        cmd.setBizTag(tag);
-        cmd.setCount(count);
+    public CompletableFuture<AllocResult> alloc(@RequestParam(value = "tag") String tag,
+                                                @RequestParam(value = "count", defaultValue = "1") int count,
+                                                @RequestParam(value = "txId", required = false) String txId,
+                                                @RequestHeader(value = "X-App-Key", required = false) String appKey,
+                                                @RequestHeader(value = IdConstants.DEADLINE_HEADER, defaultValue = "0") long deadline,
+                                                @RequestHeader(value = "X-Timestamp", defaultValue = "0") long timestamp) {
+        long localDeadline = localDeadline(deadline, timestamp);
+        if (!IdAllocService.isValidTag(tag) || !allocService.isValidCount(count) || !IdAllocService.isValidTxId(txId)) {
+            throw new IdException(IdErrorCode.INVALID_PARAMS.getCode(), IdErrorCode.INVALID_PARAMS.getMessage());
+        }
+        return allocService.alloc(tag, count, appKey, txId, localDeadline);
+    }
 
-        CompletableFuture<Object> future = new CompletableFuture<>();
-        cmd.setFuture(future);
+    /**
+     * 申请 / 续约 Worker ID 租约 (TIME_LEASED 模式)
+     * URL: POST /id/worker/lease?tag=order&workerId=-1&token=0&ttlMs=30000&maxWorkers=256
+     * <p>
+     * 成功时 minId 为 Worker ID，maxId 为租约到期时间 (同时作为下次续约的凭证)。
+     * </p>
+     */
+    @PostMapping("/worker/lease")
+    public CompletableFuture<AllocResult> leaseWorker(@RequestParam(value = "tag") String tag,
+                                                      @RequestParam(value = "workerId", defaultValue = "-1") long workerId,
+                                                      @RequestParam(value = "token", defaultValue = "0") long token,
+                                                      @RequestParam(value = "ttlMs") long ttlMs,
+                                                      @RequestParam(value = "maxWorkers") int maxWorkers) {
+        if (!IdAllocService.isValidTag(tag) || ttlMs <= 0 || maxWorkers <= 0 || maxWorkers > IdConstants.MAX_WORKERS) {
+            throw new IdException(IdErrorCode.INVALID_PARAMS.getCode(), IdErrorCode.INVALID_PARAMS.getMessage());
+        }
+        return allocService.leaseWorker(tag, workerId, token, ttlMs, maxWorkers);
+    }
+
+    /**
+     * 批量申请 ID (多 Tag 一次往返)
+     * URL: POST /id/alloc/batch?tags=order,user&counts=1000,500
+     * <p>
+     * 所有命令先全部提交到引擎 (按 Tag 路由到各自分片并行处理)，再统一等待结果。
+     * 返回列表与请求中的 Tag 顺序一一对应，每个 Tag 独立成功或失败。
+     * </p>
+     */
+    @PostMapping("/alloc/batch")
+    public CompletableFuture<List<AllocResult>> allocBatch(@RequestParam(value = "tags") List<String> tags,
+                                                           @RequestParam(value = "counts") List<Integer> counts,
+                                                           @RequestHeader(value = IdConstants.DEADLINE_HEADER, defaultValue = "0") long deadline,
+                                                           @RequestHeader(value = "X-Timestamp", defaultValue = "0") long timestamp) {
+        long localDeadline = localDeadline(deadline, timestamp);
+        if (tags.isEmpty() || tags.size() != counts.size() || tags.size() > properties.getAlloc().getMaxBatchSize()
+                || !tags.stream().allMatch(IdAllocService::isValidTag)
+                || !counts.stream().allMatch(count -> count != null && allocService.isValidCount(count))) {
+            throw new IdException(IdErrorCode.INVALID_PARAMS.getCode(), IdErrorCode.INVALID_PARAMS.getMessage());
+        }
 
-        try {
-            // 2. 提交到单线程引擎
-            engine.submit(cmd);
-        } catch (Exception e) {
-            log.error("[alloc] engine submit failed, tag={}", tag, e);
-            return AllocResult.fail(IdErrorCode.SERVER_BUSY.getCode(), IdErrorCode.SERVER_BUSY.getMessage());
+        // 1. 一次性提交所有命令 (每个 Future 都以成功或失败结果正常完成)
+        List<CompletableFuture<AllocResult>> futures = new ArrayList<>(tags.size());
+        for (int i = 0; i < tags.size(); i++) {
+            futures.add(allocService.alloc(tags.get(i), counts.get(i), localDeadline));
         }
 
-        try {
-            return (AllocResult) future.get(3, TimeUnit.SECONDS);
-        } catch (Exception e) {
+        // 2. 全部完成后按请求顺序汇总
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    List<AllocResult> results = new ArrayList<>(futures.size());
+                    for (CompletableFuture<AllocResult> future : futures) {
+                        results.add(future.join());
+                    }
+                    return results;
+                });
+    }
+
+    /**
+     * 订阅号段推送 (SSE)
+     * URL: GET /id/subscribe?tags=order,user&steps=1000,500
+     * <p>
+     * 订阅建立后每个 Tag 立即推送一个号段，之后客户端每 ack 一次推送下一个。
+     * </p>
+     */
+    @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(value = "tags") List<String> tags,
+                                @RequestParam(value = "steps") List<Integer> steps,
+                                @RequestHeader(value = "X-App-Key", required = false) String appKey) {
+        if (tags.size() != steps.size()) {
+            throw new IdException(IdErrorCode.INVALID_PARAMS.getCode(), IdErrorCode.INVALID_PARAMS.getMessage());
+        }
+        Map<String, Integer> stepMap = new LinkedHashMap<>();
+        for (int i = 0; i < tags.size(); i++) {
+            if (steps.get(i) == null || !allocService.isValidCount(steps.get(i)) || !IdAllocService.isValidTag(tags.get(i))) {
+                throw new IdException(IdErrorCode.INVALID_PARAMS.getCode(), IdErrorCode.INVALID_PARAMS.getMessage());
+            }
+            stepMap.put(tags.get(i), steps.get(i));
         }
+        return pushService.subscribe(stepMap, appKey);
+    }
 
-        try {
-            // 同步等待结果（HTTP 阻塞）
-            return (AllocResult) future.get(3, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-            log.warn("[alloc] timeout, tag={}, count={}", tag, count);
-            return AllocResult.fail(IdErrorCode.SERVER_BUSY.getCode(), IdErrorCode.SERVER_BUSY.getMessage());
-        } catch (ExecutionException e) {
-            log.error("[alloc] execution error", e.getCause());
-            return AllocResult.fail(IdErrorCode.INTERNAL_ERROR.getCode(), e.getCause().getMessage());
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return AllocResult.fail(IdErrorCode.INTERNAL_ERROR.getCode(), "Thread interrupted");
+    /**
+     * 确认开始消费上一个推送号段，触发推送下一个
+     * URL: POST /id/subscribe/ack?subscription=xxx&tag=order
+     * <p>
+     * 订阅已失效时返回 404，客户端应重新订阅。
+     * </p>
+     */
+    @PostMapping("/subscribe/ack")
+    public ResponseEntity<Void> ack(@RequestParam(value = "subscription") String subscription,
+                                    @RequestParam(value = "tag") String tag) {
+        return pushService.ack(subscription, tag) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 把客户端的截止时间换算为服务端时钟
+     * <p>
+     * X-Deadline 与 X-Timestamp 都取自客户端时钟，只用两者之差作为预算，从服务端收到请求时开始计时，
+     * 两端时钟偏差不会让请求被误判过期或永不过期。缺少 X-Timestamp 时无法换算，视为不限。
+     * </p>
+     */
+    private static long localDeadline(long deadline, long timestamp) {
+        if (deadline == 0 || timestamp == 0) {
+            return 0;
         }
+        return System.currentTimeMillis() + Math.max(0, deadline - timestamp);
     }
 }
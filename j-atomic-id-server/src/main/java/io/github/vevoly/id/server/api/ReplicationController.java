@@ -0,0 +1,116 @@
+package io.github.vevoly.id.server.api;
+
+import io.github.vevoly.id.api.exceptions.IdErrorCode;
+import io.github.vevoly.id.api.exceptions.IdException;
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.replication.ReplicationFeed;
+import io.github.vevoly.id.server.replication.ReplicationFollower;
+import io.github.vevoly.id.server.replication.ReplicationState;
+import io.github.vevoly.id.server.service.IdAllocService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 主从复制接口
+ * <ul>
+ *     <li>主节点: 变更流 (changes / snapshot)、隔离 (fence)</li>
+ *     <li>从节点: 提升为主节点 (promote)</li>
+ * </ul>
+ */
+@Slf4j
+@RestController
+@RequestMapping("/cluster/replication")
+public class ReplicationController {
+
+    @Autowired
+    private ReplicationFeed feed;
+
+    @Autowired
+    private ReplicationState state;
+
+    @Autowired
+    private ReplicationFollower follower;
+
+    @Autowired
+    private IdAllocService allocService;
+
+    @Autowired
+    private IdServerProperties properties;
+
+    /**
+     * 增量变更 (长轮询)
+     * URL: GET /cluster/replication/changes?since=100&limit=4096&waitMs=500
+     */
+    @GetMapping("/changes")
+    public ReplicationFeed.Changes changes(@RequestParam("since") long since,
+                                          @RequestParam(value = "limit", defaultValue = "4096") int limit,
+                                          @RequestParam(value = "waitMs", defaultValue = "0") long waitMs) throws InterruptedException {
+        checkFeed();
+        int maxBatch = Math.min(limit, properties.getReplication().getMaxBatch());
+        long maxWait = properties.getReplication().getPollWait().toMillis();
+        return feed.read(since, Math.max(1, maxBatch), Math.min(waitMs, maxWait));
+    }
+
+    /**
+     * 全量快照
+     * URL: GET /cluster/replication/snapshot
+     */
+    @GetMapping("/snapshot")
+    public ReplicationFeed.Changes snapshot() {
+        checkFeed();
+        // 直接读取引擎全部分片的状态，包含重启前已存在的 Tag
+        return feed.snapshot(allocService::snapshot);
+    }
+
+    /**
+     * 隔离本节点 (由新主节点调用)，之后拒绝所有申请；隔离标记写入 WAL，重启后仍然有效
+     * URL: POST /cluster/replication/fence
+     */
+    @PostMapping("/fence")
+    public Map<String, Object> fence() {
+        // 先在内存中拒绝新申请，再写入每个引擎分片 (已排队的申请由处理器拒绝)
+        state.fence();
+        allocService.fence(true);
+        log.warn("<<< 本节点已被隔离，不再处理申请");
+        return status();
+    }
+
+    /**
+     * 把从节点提升为主节点
+     * URL: POST /cluster/replication/promote?force=false
+     *
+     * @param force 无法隔离旧主节点时仍然提升 (仅在确认旧主节点已宕机且不会再启动时使用)
+     */
+    @PostMapping("/promote")
+    public Map<String, Object> promote(@RequestParam(value = "force", defaultValue = "false") boolean force) {
+        try {
+            follower.promote(force);
+        } catch (IllegalStateException e) {
+            throw new IdException(IdErrorCode.INVALID_PARAMS.getCode(), e.getMessage());
+        }
+        return status();
+    }
+
+    /**
+     * 当前复制状态
+     * URL: GET /cluster/replication/status
+     */
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("role", state.getRole());
+        status.put("fenced", state.isFenced());
+        status.put("writable", state.isWritable());
+        return status;
+    }
+
+    private void checkFeed() {
+        if (!feed.isEnabled()) {
+            throw new IdException(IdErrorCode.NOT_LEADER.getCode(), IdErrorCode.NOT_LEADER.getMessage());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package io.github.vevoly.id.server.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.vevoly.id.api.cluster.ConsistentHashRing;
+import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.utils.SignatureUtils;
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.replication.ReplicationFeed;
+import io.github.vevoly.id.server.service.IdAllocService;
+import io.github.vevoly.id.server.service.IdProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * <h3>成员变更接管 (Membership Handover)</h3>
+ *
+ * <p>
+ * 集群成员变更后 (开启 {@code handover})，向变更前的每个节点调用 {@code POST /cluster/handover}：
+ * 原节点先停止服务新成员环中属于本节点的 Tag，再返回这些 Tag 的 MaxId；
+ * 本节点以同步命令把它们抬高到 MaxId + {@code handover-gap} (覆盖移交瞬间仍在途的申请)，全部完成后才开始服务迁入的 Tag。
+ * 随 Tag 一起移交的 Worker 租约 Key (到期时间与申请游标) 按所属 Tag 路由、原值写入，不加 gap。
+ * 原节点不可达时持续重试，因此被移除的节点必须在接管完成后才能下线。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Membership Handover.</b><br>
+ * After a membership change, takes over the max id of every migrated tag from its previous owner
+ * (which stops serving it first) plus a safety gap, before this node serves those tags.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+@Component
+public class ClusterHandover implements SmartLifecycle {
+
+    private static final String HANDOVER_PATH = "/cluster/handover";
+
+    @Autowired
+    private IdServerProperties properties;
+
+    @Autowired
+    private ClusterRouter router;
+
+    @Autowired
+    private IdAllocService allocService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(3))
+            .build();
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        ConsistentHashRing from = router.getHandoverFrom();
+        if (from == null) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(() -> takeOverAll(from), "j-atomic-id-cluster-handover");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void takeOverAll(ConsistentHashRing from) {
+        Set<String> pending = new LinkedHashSet<>(from.getNodes().keySet());
+        pending.remove(router.getNodeId());
+        long retryMillis = properties.getCluster().getHandoverRetryInterval().toMillis();
+        while (running && !pending.isEmpty()) {
+            for (Iterator<String> it = pending.iterator(); it.hasNext(); ) {
+                String peer = it.next();
+                try {
+                    int count = takeOver(from.addressOf(peer));
+                    log.info("[cluster] took over {} tags from {}", count, peer);
+                    it.remove();
+                } catch (Exception e) {
+                    log.warn("[cluster] handover from {} failed, retrying: {}", peer, e.getMessage());
+                }
+            }
+            if (!pending.isEmpty()) {
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            router.completeHandover();
+        }
+        running = false;
+    }
+
+    /**
+     * 从一个原节点接管迁入的 Tag
+     *
+     * @return 接管的 Tag 数量
+     */
+    private int takeOver(String address) throws IOException, InterruptedException {
+        IdServerProperties.Cluster cluster = properties.getCluster();
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("node", router.getNodeId());
+        params.put("nodes", router.getNodes().entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(",")));
+        params.put("virtualNodes", String.valueOf(cluster.getVirtualNodes()));
+
+        String query = params.entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        URI uri = URI.create(address + HANDOVER_PATH + "?" + query);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+        // 以管理接口凭证签名 (请求方法与路径计入原文)
+        IdServerProperties.Admin admin = properties.getAdmin();
+        if (admin.getAppKey() != null && admin.getAppSecret() != null) {
+            builder.header("X-App-Key", admin.getAppKey())
+                    .header("X-Timestamp", String.valueOf(System.currentTimeMillis()))
+                    .header("X-Signature", SignatureUtils.signRequest(admin.getAppSecret(), "POST", uri.getRawPath(), params));
+        }
+        HttpRequest request = builder.timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Peer returned HTTP " + response.statusCode());
+        }
+        ReplicationFeed.Change[] changes = objectMapper.readValue(response.body(), ReplicationFeed.Change[].class);
+
+        List<CompletableFuture<AllocResult>> futures = new ArrayList<>(changes.length);
+        for (ReplicationFeed.Change change : changes) {
+            // 租约 Key 的值是到期时间 / 游标而不是 ID，不加 gap；按所属 Tag 路由到处理其租约命令的分片
+            String key = change.bizTag();
+            long gap = IdProcessor.isWorkerKey(key) ? 0L : cluster.getHandoverGap();
+            futures.add(allocService.sync(key, IdProcessor.bizTagOf(key), change.maxId() + gap));
+        }
+        for (CompletableFuture<AllocResult> future : futures) {
+            AllocResult result = future.join();
+            if (!result.isSuccess()) {
+                throw new IllegalStateException("Sync command failed: " + result.getMessage());
+            }
+        }
+        return changes.length;
+    }
+}
@@ -0,0 +1,259 @@
+package io.github.vevoly.id.server.cluster;
+
+import io.github.vevoly.id.api.cluster.ConsistentHashRing;
+import io.github.vevoly.id.server.config.IdServerProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <h3>集群路由 (Cluster Router)</h3>
+ *
+ * <p>
+ * 集群模式下每个节点只负责一致性哈希环上属于自己的 Tag，各自拥有独立的账本目录与持久化后端。
+ * 收到不属于自己的 Tag 时拒绝处理，并把归属节点地址作为重定向提示返回给客户端。
+ * 未开启集群时所有 Tag 都由本节点处理；交错号段模式的 Tag 由所有节点共同服务，不做归属检查。
+ * </p>
+ * <p>
+ * <b>成员变更：</b>各节点的存储互相独立，迁入的 Tag 在新节点上没有历史 MaxId，直接服务会重复发号。
+ * 因此启动时与账本目录中记录的上一次成员列表比较，不一致时默认拒绝启动；
+ * 开启 {@code handover} 后，迁入的 Tag 在接管完成前返回 SERVER_BUSY，
+ * 由 {@link ClusterHandover} 向原归属节点取回 MaxId (原节点同时停止服务这些 Tag) 并抬高 {@code handover-gap} 后再开始服务。
+ * 没有成员记录的新节点在开启 {@code handover} 时视为从其他所有节点迁入。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Cluster Router.</b><br>
+ * Decides whether this node owns a tag, based on static or file-based membership.
+ * A membership change is refused at startup unless handover is enabled, in which case migrated
+ * tags are only served after their max id has been taken over from the previous owner.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+@Component
+public class ClusterRouter {
+
+    private static final String MEMBERSHIP_FILE = "cluster-membership.properties";
+    private static final String VIRTUAL_NODES_KEY = "__virtual_nodes__";
+
+    @Autowired
+    private IdServerProperties properties;
+
+    @Value("${j-atomic-ledger.base-dir:./data}")
+    private String baseDir;
+
+    private ConsistentHashRing ring;
+    private String nodeId;
+    private Set<String> sharedTags = Set.of();
+
+    // 成员变更前的哈希环，迁入的 Tag 接管完成前不服务 (无需接管时为 null)
+    private volatile ConsistentHashRing handoverFrom;
+
+    // 已移交给其他节点的 Tag (按新成员环判断)，由 /cluster/handover 写入
+    private final List<Release> releases = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        IdServerProperties.Cluster cluster = properties.getCluster();
+        if (!cluster.isEnabled()) {
+            return;
+        }
+        Map<String, String> nodes = cluster.getNodesFile() != null && !cluster.getNodesFile().isEmpty()
+                ? ConsistentHashRing.readNodes(cluster.getNodesFile())
+                : cluster.getNodes();
+        nodeId = cluster.getNodeId();
+        if (nodeId == null || !nodes.containsKey(nodeId)) {
+            throw new IllegalStateException("Cluster node-id '" + nodeId + "' is not in the membership " + nodes.keySet());
+        }
+        ring = new ConsistentHashRing(nodes, cluster.getVirtualNodes());
+        if (properties.getInterleave().isEnabled()) {
+            sharedTags = new HashSet<>(properties.getInterleave().getTags());
+        }
+
+        // 与上一次运行的成员列表比较
+        Map<String, String> current = membershipOf(nodes, cluster.getVirtualNodes());
+        Map<String, String> previous = readMembership();
+        if (previous == null) {
+            if (cluster.isHandover() && nodes.size() > 1) {
+                // 新加入的节点：没有上一次的成员记录，本节点的 Tag 都可能来自其他现有节点
+                Map<String, String> others = new TreeMap<>(nodes);
+                others.remove(nodeId);
+                handoverFrom = new ConsistentHashRing(others, cluster.getVirtualNodes());
+                log.warn(">>> 新加入集群，本节点的 Tag 在接管完成前暂停服务");
+            } else {
+                writeMembership(current);
+            }
+        } else if (!previous.equals(current)) {
+            if (!cluster.isHandover()) {
+                throw new IllegalStateException("Cluster membership changed from " + previous + " to " + current
+                        + ": migrated tags would re-issue ids. Set j-atomic-id.server.cluster.handover=true"
+                        + " to take them over from their previous owners");
+            }
+            handoverFrom = ringOf(previous);
+            log.warn(">>> 集群成员已变更，迁入的 Tag 在接管完成前暂停服务，原成员: {}", handoverFrom.getNodes().keySet());
+        }
+        log.info(">>> 集群模式已开启，本节点: {}，成员: {}", nodeId, nodes.keySet());
+    }
+
+    /**
+     * 本节点是否负责该 Tag
+     */
+    public boolean isLocal(String bizTag) {
+        if (ring == null || sharedTags.contains(bizTag)) {
+            return true;
+        }
+        if (!nodeId.equals(ring.ownerOf(bizTag))) {
+            return false;
+        }
+        for (Release release : releases) {
+            if (release.nodeId().equals(release.ring().ownerOf(bizTag))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 本节点负责的 Tag 是否仍在等待从原归属节点接管
+     */
+    public boolean isHandingOver(String bizTag) {
+        ConsistentHashRing from = handoverFrom;
+        return from != null && !sharedTags.contains(bizTag) && !nodeId.equals(from.ownerOf(bizTag));
+    }
+
+    /**
+     * Tag 归属节点的地址 (重定向提示)
+     */
+    public String ownerAddress(String bizTag) {
+        if (ring == null) {
+            return null;
+        }
+        for (Release release : releases) {
+            if (release.nodeId().equals(release.ring().ownerOf(bizTag))) {
+                return release.ring().addressOf(release.nodeId());
+            }
+        }
+        return ring.addressOf(ring.ownerOf(bizTag));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 当前成员列表 (Key: 节点 ID, Value: 节点地址)
+     */
+    public Map<String, String> getNodes() {
+        return ring.getNodes();
+    }
+
+    /**
+     * 成员变更前的哈希环 (无需接管时为 null)
+     */
+    public ConsistentHashRing getHandoverFrom() {
+        return handoverFrom;
+    }
+
+    /**
+     * 迁入的 Tag 已全部接管：记录当前成员列表，开始服务
+     */
+    public void completeHandover() {
+        writeMembership(membershipOf(ring.getNodes(), properties.getCluster().getVirtualNodes()));
+        handoverFrom = null;
+        log.info("<<< 集群成员变更接管完成");
+    }
+
+    /**
+     * 把新成员环中属于 requester 的 Tag 移交出去：之后对这些 Tag 返回 NOT_OWNER 并重定向到 requester。
+     * 同时记录新成员列表，本节点以旧成员列表重启时须重新接管 (不会再直接服务已移交的 Tag)。
+     *
+     * @return 新成员环
+     */
+    public ConsistentHashRing release(String requester, Map<String, String> nodes, int virtualNodes) {
+        if (ring == null) {
+            throw new IllegalStateException("Cluster mode is not enabled");
+        }
+        if (requester.equals(nodeId) || !nodes.containsKey(requester)) {
+            throw new IllegalArgumentException("Invalid handover requester: " + requester);
+        }
+        ConsistentHashRing target = new ConsistentHashRing(nodes, virtualNodes);
+        releases.add(new Release(target, requester));
+        writeMembership(membershipOf(nodes, virtualNodes));
+        log.warn("<<< 已把新成员环中属于 {} 的 Tag 移交出去", requester);
+        return target;
+    }
+
+    private static Map<String, String> membershipOf(Map<String, String> nodes, int virtualNodes) {
+        Map<String, String> membership = new TreeMap<>(nodes);
+        membership.put(VIRTUAL_NODES_KEY, String.valueOf(virtualNodes));
+        return membership;
+    }
+
+    private static ConsistentHashRing ringOf(Map<String, String> membership) {
+        Map<String, String> nodes = new TreeMap<>(membership);
+        String virtualNodes = nodes.remove(VIRTUAL_NODES_KEY);
+        return new ConsistentHashRing(nodes, virtualNodes == null
+                ? ConsistentHashRing.DEFAULT_VIRTUAL_NODES : Integer.parseInt(virtualNodes));
+    }
+
+    private Map<String, String> readMembership() {
+        Path file = Path.of(baseDir, MEMBERSHIP_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read cluster membership: " + file, e);
+        }
+        Map<String, String> membership = new TreeMap<>();
+        for (String key : props.stringPropertyNames()) {
+            membership.put(key, props.getProperty(key));
+        }
+        return membership;
+    }
+
+    private synchronized void writeMembership(Map<String, String> membership) {
+        Path file = Path.of(baseDir, MEMBERSHIP_FILE);
+        Path tmp = Path.of(baseDir, MEMBERSHIP_FILE + ".tmp");
+        Properties props = new Properties();
+        props.putAll(membership);
+        try {
+            Files.createDirectories(file.getParent());
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                props.store(writer, "j-atomic-id cluster membership, do not edit");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write cluster membership: " + file, e);
+        }
+    }
+
+    /**
+     * 一次移交：新成员环中属于 nodeId 的 Tag 不再由本节点服务
+     */
+    private record Release(ConsistentHashRing ring, String nodeId) {
+    }
+}
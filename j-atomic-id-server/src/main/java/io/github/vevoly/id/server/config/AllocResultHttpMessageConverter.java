@@ -0,0 +1,65 @@
+package io.github.vevoly.id.server.config;
+
+import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.protocol.IdProtocol;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * <h3>AllocResult 二进制转换器 (Binary AllocResult Converter)</h3>
+ *
+ * <p>
+ * 客户端在 Accept 中声明 {@value IdProtocol#BINARY_MEDIA_TYPE} 时，以 TCP RESULT 帧的定长布局输出 {@link AllocResult}，
+ * 成功结果为预先计算长度的 31 字节数组，省去 JSON 序列化与反序列化。
+ * 只支持该媒体类型，未声明的客户端 (含 {@code *}{@code /*}) 仍由 Jackson 输出 JSON。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Binary AllocResult Converter.</b><br>
+ * Writes AllocResult in the fixed RESULT frame layout when the client accepts application/x-atomic-id;
+ * everyone else keeps getting JSON.
+ * </span>
+ *
+ * @author vevoly
+ */
+public class AllocResultHttpMessageConverter extends AbstractHttpMessageConverter<AllocResult> {
+
+    public static final MediaType BINARY = MediaType.parseMediaType(IdProtocol.BINARY_MEDIA_TYPE);
+
+    public AllocResultHttpMessageConverter() {
+        super(BINARY);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return AllocResult.class == clazz;
+    }
+
+    @Override
+    protected AllocResult readInternal(Class<? extends AllocResult> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return IdProtocol.decodeResult(inputMessage.getBody().readAllBytes());
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Malformed AllocResult body", e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Long getContentLength(AllocResult result, MediaType contentType) {
+        // 编码在 writeInternal 中进行，这里不重复计算
+        return null;
+    }
+
+    @Override
+    protected void writeInternal(AllocResult result, HttpOutputMessage outputMessage) throws IOException {
+        byte[] body = IdProtocol.encodeResult(result);
+        outputMessage.getHeaders().setContentLength(body.length);
+        outputMessage.getBody().write(body);
+    }
+}
@@ -1,6 +1,8 @@
 package io.github.vevoly.id.server.config;
 
 import io.github.vevoly.id.api.exceptions.IdException;
+import io.github.vevoly.id.server.limit.RateLimitedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -12,6 +14,17 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    /**
+     * 超出 AppKey 配额：429 + Retry-After (秒，向上取整)
+     */
+    @ExceptionHandler(RateLimitedException.class)
+    public ResponseEntity<ErrorResponse> handleRateLimited(RateLimitedException e) {
+        long retryAfterSeconds = (e.getRetryAfterMillis() + 999) / 1000;
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(new ErrorResponse(e.getCode(), e.getMessage()));
+    }
+
     @ExceptionHandler(IdException.class)
     public ResponseEntity<ErrorResponse> handleIdException(IdException e) {
         ErrorResponse response = new ErrorResponse(e.getCode(), e.getMessage());
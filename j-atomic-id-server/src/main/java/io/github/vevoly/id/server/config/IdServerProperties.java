@@ -4,6 +4,7 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -32,6 +33,34 @@ public class IdServerProperties {
 
     private Auth auth = new Auth();
 
+    private Admin admin = new Admin();
+
+    private Alloc alloc = new Alloc();
+
+    private Tcp tcp = new Tcp();
+
+    private Persist persist = new Persist();
+
+    private Bootstrap bootstrap = new Bootstrap();
+
+    private Store store = new Store();
+
+    private Metrics metrics = new Metrics();
+
+    private HotTags hotTags = new HotTags();
+
+    private Cluster cluster = new Cluster();
+
+    private Interleave interleave = new Interleave();
+
+    private Replication replication = new Replication();
+
+    private WorkerLease workerLease = new WorkerLease();
+
+    private Push push = new Push();
+
+    private RateLimit rateLimit = new RateLimit();
+
     @Data
     public static class Auth {
 
@@ -47,10 +76,426 @@ public class IdServerProperties {
         private Map<String, String> clients = new HashMap<>();
 
         /**
-         * ip 白名单
+         * ip 白名单 (支持单个 IP 与 CIDR 网段，如 10.0.0.0/8)
          */
         private List<String> ipWhitelist = new ArrayList<>();
     }
 
+    @Data
+    public static class Admin {
+
+        /**
+         * 节点间管理接口 (/cluster/**: 复制、隔离、提升、成员移交) 专用的 AppKey / AppSecret，
+         * 与 auth.clients 中的业务凭证相互独立，集群内各节点须配置相同的值。
+         * 开启鉴权且未配置时，管理接口拒绝所有请求
+         */
+        private String appKey;
+
+        private String appSecret;
+    }
+
+    @Data
+    public static class Alloc {
+
+        /**
+         * 批量申请接口单次最多允许的 Tag 数量
+         */
+        private int maxBatchSize = 200;
+
+        /**
+         * 单个 Tag 单次最多申请的 ID 数量 (单条、批量、订阅步长、TCP 均适用)
+         */
+        private int maxCount = 10_000_000;
+
+        /**
+         * 等待引擎返回结果的超时时间，超时返回 SERVER_BUSY
+         */
+        private Duration timeout = Duration.ofSeconds(3);
+
+        /**
+         * 是否合并同一 Tag 并发的 count=1 请求 (减少 WAL 与落库条数)
+         */
+        private boolean coalesce = true;
+
+        /**
+         * 单条合并命令最多包含的请求数
+         */
+        private int coalesceMaxBatch = 1024;
+
+        /**
+         * 按客户端 txId 缓存的最近申请结果数量 (重试直接返回首次结果)，0 表示关闭
+         */
+        private int recentResults = 65536;
+    }
+
+    @Data
+    public static class Persist {
+
+        /**
+         * 落库时每次 JDBC Batch 提交的行数 (按 Tag 合并后)
+         */
+        private int batchSize = 500;
+
+        /**
+         * 租约 (高水位) 落库配置
+         */
+        private Lease lease = new Lease();
+    }
+
+    @Data
+    public static class Lease {
+
+        /**
+         * 是否开启租约模式：数据库只记录安全上界 maxId + size，
+         * 内存 MaxId 越过上界时才再次落库。冷启动从数据库恢复时直接从上界继续发号 (会跳过未用完的租约)。
+         */
+        private boolean enabled = false;
+
+        /**
+         * 默认租约大小
+         */
+        private long size = 100000;
+
+        /**
+         * 按 Tag 单独配置的租约大小
+         * Key: bizTag, Value: 租约大小
+         */
+        private Map<String, Long> tags = new HashMap<>();
+
+        public long sizeOf(String bizTag) {
+            Long tagSize = tags.get(bizTag);
+            return tagSize != null ? tagSize : size;
+        }
+    }
+
+    @Data
+    public static class Store {
+
+        /**
+         * 持久化后端: mysql (默认) / file (嵌入式文件，无需数据库)
+         */
+        private String type = "mysql";
+
+        private File file = new File();
+
+        @Data
+        public static class File {
+
+            /**
+             * 数据文件路径
+             */
+            private String path = "./data/j-atomic-id-server/store/id-store.log";
+
+            /**
+             * 每批写入后是否 fsync
+             */
+            private boolean fsync = true;
+
+            /**
+             * 追加记录数达到该值后触发压缩
+             */
+            private long compactThreshold = 1_000_000;
+        }
+    }
+
+    @Data
+    public static class Bootstrap {
+
+        /**
+         * 冷启动从数据库分页加载时每页的行数
+         */
+        private int pageSize = 5000;
+
+        /**
+         * 冷启动并行加载的区间数 (1 表示单线程顺序加载)
+         */
+        private int parallelism = 1;
+    }
+
+    @Data
+    public static class Tcp {
+
+        /**
+         * 是否开启二进制 TCP 协议 (与 HTTP 并存)
+         */
+        private boolean enabled = false;
+
+        /**
+         * TCP 监听端口
+         */
+        private int port = 9090;
+
+        /**
+         * 单连接最多未写回的响应数，达到上限后暂停读取该连接 (背压)
+         */
+        private int maxPendingResponses = 1024;
+
+        /**
+         * 背压持续超过该时长 (客户端不读取响应) 时关闭连接
+         */
+        private Duration slowClientTimeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Metrics {
+
+        /**
+         * 是否采集分阶段耗时 (鉴权 / 排队 / 处理 / 回调 / HTTP 总耗时)
+         */
+        private boolean stageTimers = true;
+
+        /**
+         * 带 Tag 维度的指标最多区分的 Tag 数量，超出部分统一归入 "other"
+         */
+        private int maxTags = 50;
+
+        /**
+         * 按 Tag 计时器的轮换周期：热点统计开启时按 Top-K 重选单独建档的 Tag，否则淘汰周期内没有记录的 Tag
+         */
+        private Duration tagRefreshInterval = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Cluster {
+
+        /**
+         * 是否开启集群模式 (按一致性哈希划分 Tag，每个节点独立的账本目录与持久化后端)
+         */
+        private boolean enabled = false;
+
+        /**
+         * 本节点 ID，必须出现在成员列表中
+         */
+        private String nodeId;
+
+        /**
+         * 静态成员列表
+         * Key: 节点 ID, Value: 客户端可访问的节点地址 (如 http://10.0.0.1:8090)
+         */
+        private Map<String, String> nodes = new HashMap<>();
+
+        /**
+         * 成员文件 (Properties 格式，nodeId=address)，配置后优先于 nodes
+         */
+        private String nodesFile;
+
+        /**
+         * 每个节点的虚拟节点数 (客户端须保持一致)
+         */
+        private int virtualNodes = 128;
+
+        /**
+         * 成员变更后是否从原归属节点接管迁入的 Tag。
+         * 关闭时 (默认)，成员列表与账本目录中记录的上一次不一致则拒绝启动
+         */
+        private boolean handover = false;
+
+        /**
+         * 接管时在原 MaxId 上额外跳过的 ID 数量 (覆盖移交瞬间仍在途的申请)
+         */
+        private long handoverGap = 100000;
+
+        /**
+         * 原归属节点不可达时的重试间隔
+         */
+        private Duration handoverRetryInterval = Duration.ofSeconds(3);
+    }
+
+    @Data
+    public static class Interleave {
+
+        /**
+         * 是否开启交错号段模式：N 个实例各自只分配块序号 ≡ instanceIndex (mod instanceCount) 的块，
+         * 无需协调即可同时服务同一个 Tag (只保证唯一，不保证全局递增)
+         */
+        private boolean enabled = false;
+
+        /**
+         * 本实例序号，从 0 开始
+         */
+        private int instanceIndex = 0;
+
+        /**
+         * 实例总数 (所有实例须一致；变更实例数会改变块的归属，须先让各实例越过同一个更大的起点)
+         */
+        private int instanceCount = 1;
+
+        /**
+         * 块大小 (所有实例须一致)，单次分配不会跨块
+         */
+        private long blockSize = 100000;
+
+        /**
+         * 使用交错号段的 Tag (在集群模式下这些 Tag 由所有节点共同服务)
+         */
+        private List<String> tags = new ArrayList<>();
+    }
+
+    @Data
+    public static class Replication {
+
+        /**
+         * 复制角色: STANDALONE (默认) / LEADER / FOLLOWER
+         */
+        private ReplicationRole role = ReplicationRole.STANDALONE;
+
+        /**
+         * 主节点地址 (从节点使用，也作为拒绝请求时的重定向提示)
+         */
+        private String leaderUrl;
+
+        /**
+         * 主节点保留的最近变更条数，从节点落后超过该值时重新拉取全量快照
+         */
+        private int feedCapacity = 65536;
+
+        /**
+         * 单次拉取的最大变更条数
+         */
+        private int maxBatch = 4096;
+
+        /**
+         * 长轮询等待时间
+         */
+        private Duration pollWait = Duration.ofMillis(500);
+
+        /**
+         * 拉取失败后的重试间隔
+         */
+        private Duration retryInterval = Duration.ofSeconds(1);
+
+        /**
+         * 提升为主节点时，在每个已知 Tag 的 MaxId 上额外跳过的 ID 数量 (覆盖主节点最后尚未同步到的分配)
+         */
+        private long promoteGap = 100000;
+    }
+
+    @Data
+    public static class WorkerLease {
+
+        /**
+         * 单次租约允许的最长时间
+         */
+        private Duration maxTtl = Duration.ofMinutes(5);
+
+        /**
+         * 租约到期后再宽限多久才能分配给其他实例 (覆盖客户端与服务端的时钟偏差)
+         */
+        private Duration grace = Duration.ofSeconds(5);
+
+        /**
+         * 每个 Tag 可分配的 Worker ID 上限 (服务端约束，客户端申请的 maxWorkers 超出时按此截断)
+         */
+        private int maxWorkers = 1024;
+    }
+
+    @Data
+    public static class RateLimit {
+
+        /**
+         * 是否按 AppKey 限流 (在进入引擎前拒绝超额请求)
+         */
+        private boolean enabled = false;
+
+        /**
+         * 未单独配置的 AppKey 使用的配额
+         */
+        private Quota defaults = new Quota();
+
+        /**
+         * 按 AppKey 单独配置的配额
+         * Key: AppKey
+         */
+        private Map<String, Quota> clients = new HashMap<>();
+    }
+
+    @Data
+    public static class Quota {
+
+        /**
+         * 每秒请求数，0 表示不限
+         */
+        private long requestsPerSecond = 0;
+
+        /**
+         * 每秒申请的 ID 数量，0 表示不限
+         */
+        private long idsPerSecond = 0;
+
+        /**
+         * 允许的突发量 (按速率折算的时长)
+         */
+        private Duration burst = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Push {
+
+        /**
+         * 是否开启号段推送订阅 (GET /id/subscribe)
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最大订阅连接数
+         */
+        private int maxSubscriptions = 1024;
+
+        /**
+         * 单个订阅最多包含的 Tag 数量
+         */
+        private int maxTags = 256;
+
+        /**
+         * 订阅连接的最长保持时间，到期后由客户端重连
+         */
+        private Duration timeout = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class HotTags {
+
+        /**
+         * 是否统计热点 Tag 并在结果中返回推荐步长
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每个引擎分片最多跟踪的 Tag 数量
+         */
+        private int capacity = 256;
+
+        /**
+         * 跟踪已满后未命中的 Tag 每多少次采样替换一次 (1 表示每次都替换)。
+         * 冷 Tag 极多时大部分未命中只需一次探测，热点 Tag 出现频繁仍会很快进入跟踪
+         */
+        private int missSample = 16;
+
+        /**
+         * 监控端点返回的 Tag 数量
+         */
+        private int topK = 20;
+
+        /**
+         * 统计窗口 (计数每个窗口衰减一半)
+         */
+        private Duration window = Duration.ofSeconds(10);
+
+        /**
+         * 期望客户端每个号段的使用时长，推荐步长 = 速率 * 该时长
+         */
+        private Duration targetRefillInterval = Duration.ofSeconds(30);
+
+        /**
+         * 推荐步长下限
+         */
+        private long minStep = 100;
+
+        /**
+         * 推荐步长上限
+         */
+        private long maxStep = 1_000_000;
+    }
+
 
 }
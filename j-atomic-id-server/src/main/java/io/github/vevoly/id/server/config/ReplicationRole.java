@@ -0,0 +1,22 @@
+package io.github.vevoly.id.server.config;
+
+/**
+ * 主从复制角色
+ */
+public enum ReplicationRole {
+
+    /**
+     * 单机 (不复制)
+     */
+    STANDALONE,
+
+    /**
+     * 主节点：处理申请，并对外提供变更流
+     */
+    LEADER,
+
+    /**
+     * 从节点：持续追赶主节点，不处理申请，可被提升为主节点
+     */
+    FOLLOWER
+}
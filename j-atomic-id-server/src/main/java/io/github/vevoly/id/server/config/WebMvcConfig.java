@@ -1,21 +1,46 @@
 package io.github.vevoly.id.server.config;
 
 import io.github.vevoly.id.server.interceptor.AuthInterceptor;
+import io.github.vevoly.id.server.interceptor.MetricsInterceptor;
+import io.github.vevoly.id.server.interceptor.RateLimitInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
     @Autowired
     private AuthInterceptor authInterceptor;
 
+    @Autowired
+    private MetricsInterceptor metricsInterceptor;
+
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        // 拦截所有 /id/** 的请求
+        // 耗时统计放在最前，覆盖鉴权阶段
+        registry.addInterceptor(metricsInterceptor)
+                .addPathPatterns("/id/**")
+                // 订阅是长连接，不计入请求耗时
+                .excludePathPatterns("/id/subscribe");
+        // 拦截所有 /id/** 与节点间管理接口 /cluster/** 的请求 (后者只接受 admin 凭证)
         registry.addInterceptor(authInterceptor)
+                .addPathPatterns("/id/**", "/cluster/**");
+        // 鉴权之后按 AppKey 限流 (复制接口不限)
+        registry.addInterceptor(rateLimitInterceptor)
                 .addPathPatterns("/id/**");
     }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // 追加在末尾：只有 Accept 显式声明二进制类型时才会选中，默认仍为 JSON
+        converters.add(new AllocResultHttpMessageConverter());
+    }
 }
@@ -2,9 +2,10 @@ package io.github.vevoly.id.server.domain;
 
 import lombok.Data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -27,5 +28,47 @@ public class IdState implements Serializable {
      *     <li>Value: currentMaxId (当前已分配的最大 ID)</li>
      * </ul>
      */
-    private Map<String, Long> sequences = new HashMap<>();
+    private SequenceTable sequenceTable = new SequenceTable();
+
+    /**
+     * 已落库的租约上界 (仅租约模式使用).
+     * <ul>
+     *     <li>Key: bizTag</li>
+     *     <li>Value: leasedMaxId (数据库中记录的安全上界，内存 MaxId 超过它时才需要再次落库)</li>
+     * </ul>
+     */
+    private SequenceTable leaseTable = new SequenceTable();
+
+    /**
+     * 是否已被新主节点隔离 (主从热备).
+     * <p>随快照与 WAL 持久化：被隔离的旧主节点重启后仍拒绝申请，只能作为从节点重新加入或由运维显式提升。</p>
+     */
+    private boolean fenced;
+
+    /**
+     * 兼容旧版快照：旧版本以 {@code HashMap<String, Long> sequences} 字段存储，读取后转换为 {@link SequenceTable}；
+     * 没有租约表的快照补一个空表，没有隔离标记的快照视为未隔离。
+     */
+    @Serial
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        if (fields.getObjectStreamClass().getField("sequences") != null) {
+            Map<String, Long> legacy = (Map<String, Long>) fields.get("sequences", null);
+            sequenceTable = new SequenceTable(legacy == null ? 0 : legacy.size());
+            if (legacy != null) {
+                legacy.forEach(sequenceTable::put);
+            }
+        } else {
+            sequenceTable = (SequenceTable) fields.get("sequenceTable", null);
+            if (sequenceTable == null) {
+                sequenceTable = new SequenceTable();
+            }
+            leaseTable = (SequenceTable) fields.get("leaseTable", null);
+            fenced = fields.get("fenced", false);
+        }
+        if (leaseTable == null) {
+            leaseTable = new SequenceTable();
+        }
+    }
 }
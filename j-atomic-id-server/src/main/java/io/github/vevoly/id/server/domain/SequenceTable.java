@@ -0,0 +1,497 @@
+package io.github.vevoly.id.server.domain;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * <h3>原始类型序列表 (Primitive Sequence Table)</h3>
+ *
+ * <p>
+ * 专用的 {@code String -> long} 开放寻址哈希表，用于替代 {@code HashMap<String, Long>}：
+ * <ul>
+ *     <li>每个 Entry 是共享 byte 数组 (arena) 中的一条连续记录: 哈希、值 (long，读写不装箱)、Key 的 UTF-8 字节，不保留 String 对象。</li>
+ *     <li>索引槽直接指向记录，一次查找只访问索引槽和一条记录 (两次缓存未命中)，Tag 很多时不会因分散在多个数组中而变慢。</li>
+ *     <li>Entry 只追加不删除 (业务 Tag 不会被回收)，按插入顺序的下标即可用于遍历。</li>
+ * </ul>
+ * 每个 Tag 的常驻开销约为 28 字节 + Key 长度，而 HashMap 约为 80+ 字节。
+ * </p>
+ *
+ * <p>
+ * 哈希必须打散 ({@code mix})：线性探测遇到 hashCode 连续的 Tag (order_tag_0, order_tag_1 ...) 会聚集成长探测链。
+ * 代价是按插入顺序轮询大量此类 Tag 时 HashMap 更快：它不打散 hashCode，桶与节点恰好按顺序访问，CPU 预取全部命中；
+ * 访问顺序随机或 Tag 命名无规律时该优势消失。对比数字见 {@code scripts/bench-sequence-table.sh}。
+ * </p>
+ *
+ * <p>
+ * 快照使用紧凑编码 (V2)：Key 排序后前缀压缩，值为 varint。仍可读取 V1 快照。
+ * </p>
+ *
+ * <p><b>非线程安全</b>：与 {@link IdState} 一样，只允许在引擎的单线程中修改。</p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Primitive Sequence Table.</b><br>
+ * Open-addressing {@code String -> long} map whose entries are contiguous records (hash, value, UTF-8 key)
+ * in a shared arena, so a lookup touches one index slot and one record. Hashes are scrambled to keep linear probing
+ * short for sequential tag names, which gives up HashMap's prefetch-friendly scan when such tags are polled in order.
+ * Not thread-safe; mutated only by the engine thread.
+ * </span>
+ *
+ * @author vevoly
+ */
+public class SequenceTable implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // 快照格式版本
+    private static final byte FORMAT_V1 = 1;
+    private static final byte FORMAT_V2 = 2;
+
+    private static final int MIN_CAPACITY = 16;
+
+    // 记录布局: hash(int) value(long) keyLength(int) key(UTF-8)
+    private static final int HASH_OFFSET = 0;
+    private static final int VALUE_OFFSET = 4;
+    private static final int LENGTH_OFFSET = 12;
+    private static final int KEY_OFFSET = 16;
+
+    // arena 只在内存中使用 (快照单独编码)，按本机字节序读写
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // 开放寻址槽位：存放记录在 arena 中的位置 + 1，0 表示空槽。长度为 entry 容量的 2 倍 (负载因子 0.5)
+    private transient int[] index;
+
+    // 按插入顺序存放每个 entry 的记录位置 (遍历与快照使用，查找不经过)
+    private transient int[] records;
+
+    private transient byte[] arena;
+    private transient int arenaSize;
+    private transient int size;
+
+    public SequenceTable() {
+        this(MIN_CAPACITY);
+    }
+
+    public SequenceTable(int expectedSize) {
+        allocate(Math.max(MIN_CAPACITY, expectedSize), Math.max(MIN_CAPACITY, expectedSize) * (KEY_OFFSET + 16));
+    }
+
+    /**
+     * 获取 Tag 当前值
+     */
+    public long get(String key, long defaultValue) {
+        int r = find(key, hash(key));
+        return r < 0 ? defaultValue : valueOf(r);
+    }
+
+    /**
+     * 设置 Tag 当前值
+     */
+    public void put(String key, long value) {
+        int h = hash(key);
+        int r = find(key, h);
+        if (r >= 0) {
+            LONG.set(arena, r + VALUE_OFFSET, value);
+        } else {
+            insert(key, h, value);
+        }
+    }
+
+    /**
+     * 累加并返回旧值 (Tag 不存在时视为 0)，一次探测完成读-改-写
+     */
+    public long getAndAdd(String key, long delta) {
+        int h = hash(key);
+        int r = find(key, h);
+        if (r >= 0) {
+            long old = valueOf(r);
+            LONG.set(arena, r + VALUE_OFFSET, old + delta);
+            return old;
+        }
+        insert(key, h, delta);
+        return 0L;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 第 i 个 Tag (按插入顺序)，会创建 String 对象
+     */
+    public String keyAt(int i) {
+        int r = records[i];
+        return new String(arena, r + KEY_OFFSET, keyLength(r), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 第 i 个 Tag 的值 (按插入顺序)
+     */
+    public long valueAt(int i) {
+        return valueOf(records[i]);
+    }
+
+    /**
+     * 遍历所有 Tag (按插入顺序)
+     */
+    public void forEach(ObjLongConsumer<String> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(keyAt(i), valueAt(i));
+        }
+    }
+
+    // ------------------------------------------------------------------ 内部实现
+
+    private static int hash(String key) {
+        return mix(key.hashCode());
+    }
+
+    private static int mix(int hashCode) {
+        int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int hashOf(int r) {
+        return (int) INT.get(arena, r + HASH_OFFSET);
+    }
+
+    private long valueOf(int r) {
+        return (long) LONG.get(arena, r + VALUE_OFFSET);
+    }
+
+    private int keyLength(int r) {
+        return (int) INT.get(arena, r + LENGTH_OFFSET);
+    }
+
+    /**
+     * 查找 Key 的记录位置，不存在时返回 -1
+     */
+    private int find(String key, int h) {
+        int mask = index.length - 1;
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            int r = index[slot] - 1;
+            if (r < 0) {
+                return -1;
+            }
+            if (hashOf(r) == h && keyEquals(r, key)) {
+                return r;
+            }
+        }
+    }
+
+    /**
+     * 比较记录中的 UTF-8 Key 与 String，ASCII 走逐字节快速路径，不产生对象
+     */
+    private boolean keyEquals(int r, String key) {
+        int off = r + KEY_OFFSET;
+        int len = keyLength(r);
+        int n = key.length();
+        // UTF-8 字节数不小于字符数
+        if (n > len) {
+            return false;
+        }
+        int i = 0;
+        for (; i < n; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            if (arena[off + i] != (byte) c) {
+                return false;
+            }
+        }
+        if (i == n) {
+            return n == len;
+        }
+        // 非 ASCII Key：回退到完整编码后比较
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        return Arrays.equals(arena, off, off + len, bytes, 0, bytes.length);
+    }
+
+    private void insert(String key, int h, long value) {
+        int r = arenaSize;
+        int n = key.length();
+        ensureArena(r + KEY_OFFSET + n);
+        int len = n;
+        for (int i = 0; i < n; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                // 非 ASCII：整体编码
+                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                ensureArena(r + KEY_OFFSET + bytes.length);
+                System.arraycopy(bytes, 0, arena, r + KEY_OFFSET, bytes.length);
+                len = bytes.length;
+                break;
+            }
+            arena[r + KEY_OFFSET + i] = (byte) c;
+        }
+        append(r, h, value, len);
+    }
+
+    /**
+     * 提交 arena 中位置 r 处已写好 Key 字节的记录：补全记录头并加入索引
+     */
+    private void append(int r, int h, long value, int keyLength) {
+        if (size == records.length) {
+            grow();
+        }
+        INT.set(arena, r + HASH_OFFSET, h);
+        LONG.set(arena, r + VALUE_OFFSET, value);
+        INT.set(arena, r + LENGTH_OFFSET, keyLength);
+        arenaSize = r + KEY_OFFSET + keyLength;
+        records[size++] = r;
+        link(r);
+    }
+
+    private void ensureArena(int required) {
+        if (required > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(required, arena.length * 2));
+        }
+    }
+
+    private void link(int r) {
+        int mask = index.length - 1;
+        int slot = hashOf(r) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = r + 1;
+    }
+
+    private void grow() {
+        int capacity = records.length * 2;
+        records = Arrays.copyOf(records, capacity);
+        rebuildIndex(capacity);
+    }
+
+    private void rebuildIndex(int capacity) {
+        index = new int[Integer.highestOneBit(capacity - 1) << 2];
+        for (int e = 0; e < size; e++) {
+            link(records[e]);
+        }
+    }
+
+    private void allocate(int capacity, int arenaCapacity) {
+        records = new int[capacity];
+        arena = new byte[arenaCapacity];
+        arenaSize = 0;
+        size = 0;
+        rebuildIndex(capacity);
+    }
+
+    // ------------------------------------------------------------------ 快照序列化
+
+    /**
+     * V2 快照：Key 按字节序排序后做前缀压缩，长度与值均为 varint，整体编码到一个 byte 数组后一次写出。
+     * <pre>
+     * byte FORMAT_V2 | int size | int length | entries[length]
+     * entry = varint sharedPrefix | varint suffixLength | suffix | varint value
+     * </pre>
+     * 哈希值不落盘，加载时从 Key 字节重新计算。
+     */
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        int[] order = sortedEntries();
+        // 最坏情况：每个 Key 不共享前缀，另加 3 个 varint (arena 含记录头，足够容纳)
+        byte[] buf = new byte[arenaSize + size * (5 + 5 + 10)];
+        int pos = 0;
+        int prev = -1;
+        for (int e : order) {
+            int r = records[e];
+            int len = keyLength(r);
+            int shared = prev < 0 ? 0 : sharedPrefix(records[prev], r);
+            pos = writeVarint(buf, pos, shared);
+            pos = writeVarint(buf, pos, len - shared);
+            System.arraycopy(arena, r + KEY_OFFSET + shared, buf, pos, len - shared);
+            pos += len - shared;
+            pos = writeVarint(buf, pos, valueOf(r));
+            prev = e;
+        }
+        out.writeByte(FORMAT_V2);
+        out.writeInt(size);
+        out.writeInt(pos);
+        out.write(buf, 0, pos);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        byte format = in.readByte();
+        if (format == FORMAT_V1) {
+            readV1(in);
+        } else if (format == FORMAT_V2) {
+            readV2(in);
+        } else {
+            throw new StreamCorruptedException("Unknown SequenceTable format: " + format);
+        }
+        rebuildIndex(records.length);
+    }
+
+    /**
+     * V1 快照：Key 字节连续存放，之后按 entry 依次为 Key 结束位置、哈希、值。转换为记录布局
+     */
+    private void readV1(ObjectInputStream in) throws IOException {
+        int n = in.readInt();
+        int bytes = in.readInt();
+        byte[] keys = new byte[bytes];
+        in.readFully(keys);
+        allocate(Math.max(MIN_CAPACITY, n), Math.max(MIN_CAPACITY, bytes + n * KEY_OFFSET));
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            int end = in.readInt();
+            int h = in.readInt();
+            long value = in.readLong();
+            if (end < start || end > bytes) {
+                throw new StreamCorruptedException("Corrupted SequenceTable entry: " + i);
+            }
+            int r = arenaSize;
+            ensureArena(r + KEY_OFFSET + end - start);
+            System.arraycopy(keys, start, arena, r + KEY_OFFSET, end - start);
+            append(r, h, value, end - start);
+            start = end;
+        }
+    }
+
+    private void readV2(ObjectInputStream in) throws IOException {
+        int n = in.readInt();
+        int length = in.readInt();
+        byte[] buf = new byte[length];
+        in.readFully(buf);
+        VarintReader reader = new VarintReader(buf);
+        // 解压后的 Key 总长不小于压缩数据中的后缀总长
+        allocate(Math.max(MIN_CAPACITY, n), Math.max(MIN_CAPACITY, length * 2 + n * KEY_OFFSET));
+        int prev = -1;
+        for (int e = 0; e < n; e++) {
+            long shared = reader.next();
+            long suffix = reader.next();
+            if (shared > (prev < 0 ? 0 : keyLength(prev)) || suffix > length - reader.pos) {
+                throw new StreamCorruptedException("Corrupted SequenceTable entry: " + e);
+            }
+            // 先复制上一个 Key 的公共前缀，再追加后缀
+            int r = arenaSize;
+            int keyLength = (int) (shared + suffix);
+            ensureArena(r + KEY_OFFSET + keyLength);
+            if (shared > 0) {
+                System.arraycopy(arena, prev + KEY_OFFSET, arena, r + KEY_OFFSET, (int) shared);
+            }
+            System.arraycopy(buf, reader.pos, arena, r + KEY_OFFSET + (int) shared, (int) suffix);
+            reader.pos += (int) suffix;
+            append(r, hashOfKey(r + KEY_OFFSET, keyLength), reader.next(), keyLength);
+            prev = r;
+        }
+    }
+
+    /**
+     * 从 arena 中的 Key 字节计算哈希，与 {@link #hash(String)} 一致；ASCII Key 不创建 String
+     */
+    private int hashOfKey(int off, int len) {
+        int h = 0;
+        for (int i = off; i < off + len; i++) {
+            byte b = arena[i];
+            if (b < 0) {
+                return hash(new String(arena, off, len, StandardCharsets.UTF_8));
+            }
+            h = 31 * h + b;
+        }
+        return mix(h);
+    }
+
+    /**
+     * 按 Key 字节序 (无符号) 排序的 entry 下标
+     */
+    private int[] sortedEntries() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[size], 0, size);
+        return order;
+    }
+
+    private void mergeSort(int[] a, int[] tmp, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid);
+        mergeSort(a, tmp, mid, to);
+        if (compareKeys(a[mid - 1], a[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && compareKeys(tmp[i], tmp[j]) <= 0)) {
+                a[k] = tmp[i++];
+            } else {
+                a[k] = tmp[j++];
+            }
+        }
+    }
+
+    private int compareKeys(int x, int y) {
+        int xOff = records[x] + KEY_OFFSET;
+        int yOff = records[y] + KEY_OFFSET;
+        return Arrays.compareUnsigned(arena, xOff, xOff + keyLength(records[x]), arena, yOff, yOff + keyLength(records[y]));
+    }
+
+    /**
+     * 两条记录 Key 的公共前缀长度
+     */
+    private int sharedPrefix(int rx, int ry) {
+        int xOff = rx + KEY_OFFSET;
+        int yOff = ry + KEY_OFFSET;
+        int xLen = keyLength(rx);
+        int mismatch = Arrays.mismatch(arena, xOff, xOff + xLen, arena, yOff, yOff + keyLength(ry));
+        // 两个 Key 相同时 mismatch 为 -1 (不会出现)；一方是另一方前缀时返回较短的长度
+        return mismatch < 0 ? xLen : mismatch;
+    }
+
+    private static int writeVarint(byte[] buf, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static final class VarintReader {
+
+        private final byte[] buf;
+        private int pos;
+
+        private VarintReader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        private long next() throws StreamCorruptedException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= buf.length) {
+                    throw new StreamCorruptedException("Truncated varint");
+                }
+                byte b = buf[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed varint");
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package io.github.vevoly.id.server.interceptor;
 
+import io.github.vevoly.id.api.constants.IdConstants;
 import io.github.vevoly.id.api.exceptions.IdErrorCode;
 import io.github.vevoly.id.api.exceptions.IdException;
 import io.github.vevoly.id.api.utils.SignatureUtils;
 import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.metrics.AllocMetrics;
+import io.github.vevoly.id.server.utils.IpWhitelist;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -12,13 +17,14 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 鉴权拦截器
+ * <p>
+ * 业务接口 ({@code /id/**}) 使用 {@code auth.clients} 中的业务凭证；
+ * 节点间管理接口 ({@code /cluster/**}) 只接受 {@code admin} 专用凭证，且请求方法与路径计入签名原文。
+ * </p>
  */
 @Slf4j
 @Component
@@ -27,9 +33,37 @@ public class AuthInterceptor implements HandlerInterceptor {
     @Autowired
     private IdServerProperties authProperties;
 
+    @Autowired
+    private AllocMetrics metrics;
+
+    private static final String ADMIN_PATH = "/cluster/";
+
+    private IpWhitelist ipWhitelist;
+
+    @PostConstruct
+    public void init() {
+        // 白名单启动时预编译为网段，请求时只做整数比较
+        ipWhitelist = IpWhitelist.compile(authProperties.getAuth().getIpWhitelist());
+    }
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // 异步结果派发时请求已在首次派发中通过鉴权，不再重复校验
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        if (!metrics.isStageTimers()) {
+            return authenticate(request);
+        }
+        long start = System.nanoTime();
+        try {
+            return authenticate(request);
+        } finally {
+            metrics.recordAuth(System.nanoTime() - start);
+        }
+    }
 
+    private boolean authenticate(HttpServletRequest request) {
         // ip白名单检查
         if (!checkIpWhitelist(request)) {
             throw new IdException(IdErrorCode.IP_NOT_ALLOWED.getCode(), IdErrorCode.IP_NOT_ALLOWED.getMessage());
@@ -57,42 +91,56 @@ public class AuthInterceptor implements HandlerInterceptor {
         } catch (NumberFormatException e) {
             throw new IdException(IdErrorCode.INVALID_PARAMS.getCode(), IdErrorCode.INVALID_PARAMS.getMessage());
         }
-        // 4. 密钥校验
-        String secret = authProperties.getAuth().getClients().get(appKey);
+        // 4. 密钥校验 (管理接口与业务接口的凭证互不通用)
+        boolean admin = request.getRequestURI().startsWith(request.getContextPath() + ADMIN_PATH);
+        String secret = admin ? adminSecret(appKey) : authProperties.getAuth().getClients().get(appKey);
         if (secret == null) {
-            throw new IdException(IdErrorCode.INVALID_PARAMS.getCode(), IdErrorCode.INVALID_PARAMS.getMessage());
+            throw new IdException(IdErrorCode.AUTH_FAILED.getCode(), IdErrorCode.AUTH_FAILED.getMessage());
         }
-        // 5. 签名校验
-        Map<String, String> paramsToSign = new HashMap<>();
-        request.getParameterMap().forEach((k, v) -> {
-            if (v.length > 0) {
-                paramsToSign.put(k, v[0]);
-            }
-        });
-        if (!SignatureUtils.verify(signature, secret, paramsToSign)) {
+        // 5. 签名校验 (直接使用 Servlet 参数表，不再复制到 HashMap；截止时间 Header 一并签名)
+        String deadline = request.getHeader(IdConstants.DEADLINE_HEADER);
+        boolean valid;
+        if (admin) {
+            valid = SignatureUtils.verifyParameterMap(signature, secret, request.getParameterMap(),
+                    SignatureUtils.METHOD_KEY, request.getMethod(), SignatureUtils.PATH_KEY, request.getRequestURI());
+        } else if (deadline == null) {
+            valid = SignatureUtils.verifyParameterMap(signature, secret, request.getParameterMap());
+        } else {
+            valid = SignatureUtils.verifyParameterMap(signature, secret, request.getParameterMap(),
+                    IdConstants.DEADLINE_HEADER, deadline, "X-Timestamp", timestamp);
+        }
+        if (!valid) {
             throw new IdException(IdErrorCode.SIGNATURE_INVALID.getCode(), IdErrorCode.SIGNATURE_INVALID.getMessage());
         }
         // 全部通过，放行
         return true;
     }
 
+    /**
+     * 管理接口凭证：未配置时返回 null (拒绝)
+     */
+    private String adminSecret(String appKey) {
+        IdServerProperties.Admin admin = authProperties.getAdmin();
+        if (admin.getAppKey() == null || admin.getAppSecret() == null || !admin.getAppKey().equals(appKey)) {
+            return null;
+        }
+        return admin.getAppSecret();
+    }
+
     private boolean checkIpWhitelist(HttpServletRequest request) {
-        List<String> whiteList = authProperties.getAuth().getIpWhitelist();
-        if (whiteList == null || whiteList.isEmpty()) {
+        if (ipWhitelist.isAllowAll()) {
             return true; // 没配白名单，默认放行
         }
-
-        String ip = getClientIp(request);
-
-        // CIDR 匹配 (高级) 或者 简单 String 匹配
-        return whiteList.contains(ip);
+        // 支持单个 IP 与 CIDR 网段匹配
+        return ipWhitelist.allows(getClientIp(request));
     }
 
     private String getClientIp(HttpServletRequest request) {
         String ip = request.getHeader("X-Forwarded-For");
         if (isValidIp(ip)) {
             // XFF 可能包含多个 IP，取第一个
-            return ip.split(",")[0].trim();
+            int comma = ip.indexOf(',');
+            return comma < 0 ? ip.trim() : ip.substring(0, comma).trim();
         }
 
         ip = request.getHeader("Proxy-Client-IP");
@@ -0,0 +1,43 @@
+package io.github.vevoly.id.server.interceptor;
+
+import io.github.vevoly.id.server.metrics.AllocMetrics;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * HTTP 总耗时拦截器
+ * <p>
+ * 首次派发时记录开始时间；异步请求在结果派发完成后 (afterCompletion) 才记录，
+ * 因此统计的是包含引擎等待与响应写出的端到端耗时。
+ * </p>
+ */
+@Component
+public class MetricsInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = MetricsInterceptor.class.getName() + ".START";
+
+    @Autowired
+    private AllocMetrics metrics;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (metrics.isStageTimers() && request.getDispatcherType() == DispatcherType.REQUEST) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // 异步请求首次派发结束时不会回调这里，只在结果派发完成后回调
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start instanceof Long) {
+            request.removeAttribute(START_ATTRIBUTE);
+            metrics.recordHttp(System.nanoTime() - (Long) start);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.vevoly.id.server.interceptor;
+
+import io.github.vevoly.id.server.limit.AppRateLimiter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 按 AppKey 准入控制拦截器 (Rate Limit Interceptor)
+ * <p>
+ * 注册在鉴权之后：AppKey 已通过签名校验，超额请求在提交引擎前以 429 拒绝。
+ * ID 数量取自 {@code count} 或 {@code counts} 参数，每项至少按 1 个计 (处理器把非正数量当作 1)；
+ * 号段推送的 ID 在 {@code SegmentPushService} 每次推送时按订阅者的 AppKey 计入。
+ * </p>
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private AppRateLimiter rateLimiter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 异步结果派发时已在首次派发中计数
+        if (!rateLimiter.isEnabled() || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        rateLimiter.acquire(request.getHeader("X-App-Key"), requestedIds(request));
+        return true;
+    }
+
+    private long requestedIds(HttpServletRequest request) {
+        try {
+            String count = request.getParameter("count");
+            if (count != null) {
+                return Math.max(1, Long.parseLong(count));
+            }
+            String counts = request.getParameter("counts");
+            if (counts != null) {
+                long total = 0;
+                for (String part : counts.split(",")) {
+                    total += Math.max(1, Long.parseLong(part.trim()));
+                }
+                return total;
+            }
+        } catch (NumberFormatException e) {
+            // 参数非法时交给控制器校验
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.vevoly.id.server.limit;
+
+import io.github.vevoly.id.api.exceptions.IdErrorCode;
+import io.github.vevoly.id.api.exceptions.IdException;
+
+/**
+ * 超出 AppKey 配额 (Rate Limited)，携带建议的重试等待时间，由全局异常处理器转换为 429 + Retry-After
+ */
+public class RateLimitedException extends IdException {
+
+    private final long retryAfterMillis;
+
+    public RateLimitedException(long retryAfterMillis) {
+        super(IdErrorCode.RATE_LIMITED.getCode(), IdErrorCode.RATE_LIMITED.getMessage());
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -15,4 +15,28 @@ public interface IdGeneratorMapper extends BaseMapper<IdGeneratorEntity> {
      * 利用 MySQL 的 ON DUPLICATE KEY UPDATE 特性
      */
     void batchUpsert(@Param("list") List<IdGeneratorEntity> list);
+
+    /**
+     * 单行 Upsert，配合 BATCH 执行器使用 (SQL 文本固定，只需预编译一次)
+     * max_id 只增不减
+     */
+    void upsert(IdGeneratorEntity entity);
+
+    /**
+     * Keyset 分页查询 (只查 biz_tag, max_id)，按 biz_tag 升序
+     *
+     * @param after     起始 Tag (null 表示从头开始)
+     * @param inclusive 是否包含起始 Tag
+     * @param upper     结束 Tag (不含，null 表示直到末尾)
+     * @param limit     每页行数
+     */
+    List<IdGeneratorEntity> selectPageAfter(@Param("after") String after,
+                                            @Param("inclusive") boolean inclusive,
+                                            @Param("upper") String upper,
+                                            @Param("limit") int limit);
+
+    /**
+     * 查询按 biz_tag 排序后第 offset 行的 Tag，用于切分并行加载区间
+     */
+    String selectTagAtOffset(@Param("offset") long offset);
 }
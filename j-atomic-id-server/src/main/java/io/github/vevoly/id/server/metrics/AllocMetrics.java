@@ -0,0 +1,319 @@
+package io.github.vevoly.id.server.metrics;
+
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h3>发号链路指标 (Allocation Pipeline Metrics)</h3>
+ *
+ * <p>
+ * 把一次 {@code /id/alloc} 拆分为多个阶段分别计时，p99 抖动时可以直接定位耗时所在阶段：
+ * <ul>
+ *     <li>{@code auth}: 鉴权拦截器 (白名单 + 签名校验)</li>
+ *     <li>{@code queue}: 命令提交到引擎 -> 处理器开始执行 (分片队列排队)</li>
+ *     <li>{@code process}: {@code IdProcessor.process} 执行耗时</li>
+ *     <li>{@code complete}: 处理器完成 Future -> 调用方回调执行</li>
+ *     <li>{@code http}: HTTP 请求总耗时 (含异步派发与响应写出)</li>
+ * </ul>
+ * 所有计时器均发布直方图，由监控系统计算任意分位数。WAL 写入在账本引擎内部完成，
+ * 由引擎自身以 {@code metrics-prefix} 暴露的指标覆盖。
+ * </p>
+ * <p>
+ * 按 Tag 区分的指标最多为 {@code maxTags} 个 Tag 单独建档，其余归入 {@code other}，防止海量 Tag 撑爆指标基数。
+ * 建档的 Tag 每隔 {@code tagRefreshInterval} 轮换一次：热点统计开启时取 {@link HotTagTracker} 的 Top-K，
+ * 跌出 Top-K 的 Tag 注销计时器；热点统计关闭时注销周期内没有记录的 Tag，为新出现的 Tag 腾出名额。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Allocation Pipeline Metrics.</b><br>
+ * Per-stage timers with percentile histograms, in-flight and persistence-lag gauges,
+ * and a bounded per-tag latency timer whose tags rotate with the hot-tag top-K.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Component
+public class AllocMetrics {
+
+    private static final String OTHER_TAG = "other";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private IdServerProperties properties;
+
+    @Autowired
+    private HotTagTracker hotTags;
+
+    @Value("${j-atomic-ledger.metrics-prefix:atomic-id-server}")
+    private String metricsPrefix;
+
+    private boolean stageTimers;
+
+    private Timer authTimer;
+    private Timer queueTimer;
+    private Timer processTimer;
+    private Timer completeTimer;
+    private Timer httpTimer;
+    private Timer engineWaitTimer;
+    private Timer persistTimer;
+    private Counter expiredAtSubmit;
+    private Counter expiredAtProcess;
+
+    // 已提交但尚未返回结果的引擎命令数 (分片队列深度的总和)
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // 最早一条尚未落库实体的产生时间 (毫秒，0 表示没有积压)
+    private final AtomicLong pendingSince = new AtomicLong();
+
+    // 正在写入的批次中最早实体的产生时间
+    private volatile long writingSince;
+
+    // 按 Tag 的引擎往返耗时 (数量受 maxTags 限制，定期轮换)
+    private final Map<String, TagTimer> tagTimers = new ConcurrentHashMap<>();
+    // 已占用的名额 (不超过 maxTags)，在 compute 内预占，移除计时器时归还
+    private final AtomicInteger tagTimerSlots = new AtomicInteger();
+    private Timer otherTagTimer;
+
+    // 热点统计开启时允许单独建档的 Tag (上一轮 Top-K)
+    private volatile Set<String> hotSet = Set.of();
+
+    @PostConstruct
+    public void init() {
+        stageTimers = properties.getMetrics().isStageTimers();
+        authTimer = stageTimer("auth");
+        queueTimer = stageTimer("queue");
+        processTimer = stageTimer("process");
+        completeTimer = stageTimer("complete");
+        httpTimer = stageTimer("http");
+
+        engineWaitTimer = Timer.builder(metricsPrefix + ".alloc.engine.wait")
+                .description("Time from engine submit to allocation result")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        persistTimer = Timer.builder(metricsPrefix + ".persist.write")
+                .description("Time spent writing one persistence batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        otherTagTimer = tagTimer(OTHER_TAG);
+        expiredAtSubmit = expiredCounter("submit");
+        expiredAtProcess = expiredCounter("process");
+
+        long refresh = properties.getMetrics().getTagRefreshInterval().toMillis();
+        if (refresh > 0) {
+            ScheduledExecutorService rotator = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "j-atomic-id-metrics-rotate");
+                thread.setDaemon(true);
+                return thread;
+            });
+            rotator.scheduleWithFixedDelay(this::rotateTagTimers, refresh, refresh, TimeUnit.MILLISECONDS);
+        }
+
+        Gauge.builder(metricsPrefix + ".alloc.inflight", inFlight, AtomicInteger::get)
+                .description("Commands submitted to the engine and not yet answered")
+                .register(meterRegistry);
+        Gauge.builder(metricsPrefix + ".persist.lag", this, AllocMetrics::persistLagMillis)
+                .description("Age of the oldest allocation not yet persisted")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder(metricsPrefix + ".alloc.stage")
+                .description("Latency of one stage of the allocation pipeline")
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter expiredCounter(String stage) {
+        return Counter.builder(metricsPrefix + ".alloc.expired")
+                .description("Commands dropped because the caller's deadline had passed")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private Timer tagTimer(String tag) {
+        return Timer.builder(metricsPrefix + ".alloc.tag.latency")
+                .description("Engine round trip per business tag (bounded cardinality)")
+                .tag("biz_tag", tag)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public boolean isStageTimers() {
+        return stageTimers;
+    }
+
+    public void recordAuth(long nanos) {
+        authTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordQueue(long nanos) {
+        queueTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordProcess(long nanos) {
+        processTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordComplete(long nanos) {
+        completeTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordHttp(long nanos) {
+        httpTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次引擎往返 (总计时器 + 按 Tag 计时器)
+     */
+    public void recordEngineWait(String tag, long nanos) {
+        engineWaitTimer.record(nanos, TimeUnit.NANOSECONDS);
+        tagTimerOf(tag).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer tagTimerOf(String tag) {
+        TagTimer tagTimer = tagTimers.get(tag);
+        if (tagTimer != null) {
+            return tagTimer.timer;
+        }
+        if (hotTags.isEnabled() && !hotSet.contains(tag)) {
+            return otherTagTimer;
+        }
+        // 检查名额与插入在同一个 compute 内完成；名额计数为原子操作，不同 Tag 并发建档也不会超过 maxTags
+        tagTimer = tagTimers.compute(tag, (t, current) ->
+                current != null || !reserveTagTimerSlot() ? current : new TagTimer(tagTimer(t)));
+        return tagTimer != null ? tagTimer.timer : otherTagTimer;
+    }
+
+    private boolean reserveTagTimerSlot() {
+        int max = properties.getMetrics().getMaxTags();
+        for (int used = tagTimerSlots.get(); used < max; used = tagTimerSlots.get()) {
+            if (tagTimerSlots.compareAndSet(used, used + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 轮换单独建档的 Tag：注销跌出热点 Top-K (或本周期没有记录) 的计时器
+     */
+    private void rotateTagTimers() {
+        Set<String> keep = null;
+        if (hotTags.isEnabled()) {
+            keep = new HashSet<>();
+            for (HotTagTracker.HotTag hot : hotTags.topK(properties.getMetrics().getMaxTags())) {
+                keep.add(hot.bizTag());
+            }
+            hotSet = keep;
+        }
+        for (Map.Entry<String, TagTimer> entry : tagTimers.entrySet()) {
+            TagTimer tagTimer = entry.getValue();
+            long count = tagTimer.timer.count();
+            boolean idle = count == tagTimer.lastCount;
+            tagTimer.lastCount = count;
+            if (keep != null ? !keep.contains(entry.getKey()) : idle) {
+                if (tagTimers.remove(entry.getKey(), tagTimer)) {
+                    tagTimerSlots.decrementAndGet();
+                }
+                meterRegistry.remove(tagTimer.timer);
+            }
+        }
+    }
+
+    /**
+     * 提交前发现已过期 (未进入引擎)
+     */
+    public void expiredAtSubmit() {
+        expiredAtSubmit.increment();
+    }
+
+    /**
+     * 处理器执行前发现已过期 (不分配、不落库)
+     */
+    public void expiredAtProcess() {
+        expiredAtProcess.increment();
+    }
+
+    public void commandSubmitted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void commandFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 处理器产生了一条待落库实体
+     */
+    public void entityProduced() {
+        // 先读后写：积压期间热路径上只有一次 volatile 读
+        if (pendingSince.get() == 0) {
+            pendingSince.compareAndSet(0, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 开始写入一个批次，返回该批次最早实体的产生时间
+     */
+    public long beginPersist() {
+        long since = pendingSince.getAndSet(0);
+        writingSince = since;
+        return since;
+    }
+
+    /**
+     * 批次写入结束；失败时把积压时间还原，使 lag 继续增长
+     */
+    public void endPersist(long since, long nanos, boolean success) {
+        persistTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (!success && since != 0) {
+            pendingSince.accumulateAndGet(since, (current, s) -> current == 0 ? s : Math.min(current, s));
+        }
+        writingSince = 0;
+    }
+
+    private double persistLagMillis() {
+        long oldest = pendingSince.get();
+        long writing = writingSince;
+        if (writing != 0 && (oldest == 0 || writing < oldest)) {
+            oldest = writing;
+        }
+        return oldest == 0 ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    /**
+     * 按 Tag 计时器及上一轮轮换时的记录数 (仅轮换线程读写 lastCount)
+     */
+    private static final class TagTimer {
+        private final Timer timer;
+        private long lastCount;
+
+        TagTimer(Timer timer) {
+            this.timer = timer;
+        }
+    }
+}
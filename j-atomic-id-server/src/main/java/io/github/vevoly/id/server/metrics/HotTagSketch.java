@@ -0,0 +1,251 @@
+package io.github.vevoly.id.server.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 单个引擎分片线程私有的热点 Tag 统计 (Space-Saving 算法 + 按窗口衰减)
+ * <p>
+ * 只跟踪 {@code capacity} 个 Tag：命中时累加计数，未命中时替换计数最小的条目 (新条目继承其计数作为误差上界)。
+ * 每个窗口结束时所有计数减半 (半衰期 = 一个窗口)，并据此估算速率后发布只读快照供其他线程读取。
+ * 写入只发生在所属的引擎线程上，不需要任何锁。
+ * </p>
+ * <p>
+ * 每次分配都会在引擎线程上调用，冷 Tag 极多时几乎每次都是未命中，因此不再线性扫描找计数最小的条目：
+ * 条目按入堆时的计数 (堆键) 组成小根堆，命中只累加计数、不调整堆；替换时若堆顶的键已落后于其计数，
+ * 先以当前计数重新下沉再取堆顶 (计数只增不减，键不大于计数，因此键与计数相等的堆顶就是计数最小的条目)。
+ * 命中为 O(1)，替换均摊 O(log capacity)。Tag 到槽位的索引是开放寻址的 String -> int 表，不装箱。
+ * 计数与堆键同时减半保持大小顺序不变，衰减后无需重建堆。
+ * </p>
+ * <p>
+ * 跟踪已满后，未命中的 Tag 按 1/{@code missSample} 的概率采样替换，未采中的流量累加到下一个被采中的条目
+ * (计数总和仍等于总流量，误差上界不变)。热点 Tag 出现频繁，很快就会被采中；海量冷 Tag 的未命中大多只需一次探测。
+ * </p>
+ */
+final class HotTagSketch {
+
+    private final int capacity;
+    private final long windowMillis;
+    private final int missSampleMask;
+
+    // 槽位数据 (槽位一经分配不再移动)
+    private final String[] tags;
+    private final long[] counts;
+    private final double[] rates;
+    private int size;
+
+    // 小根堆: heap[i] 为槽位，按 keys 排序 (keys[slot] <= counts[slot])
+    private final int[] heap;
+    private final long[] keys;
+
+    // Tag -> 槽位 (线性探测，删除时后移补位)
+    private final String[] indexKeys;
+    private final int[] indexHashes;
+    private final int[] indexSlots;
+    private final int indexMask;
+    private final int indexShift;
+
+    // 未采中的未命中流量，计入下一个被采中的条目
+    private long skipped;
+    private int random;
+
+    private long windowStart;
+
+    // 最近一个窗口发布的快照，按速率降序
+    private volatile List<Entry> snapshot = List.of();
+    private volatile long snapshotTime;
+
+    /**
+     * @param missSample 跟踪已满后每多少次未命中替换一次 (向上取整到 2 的幂，1 表示每次都替换)
+     */
+    HotTagSketch(int capacity, long windowMillis, int missSample) {
+        this.capacity = capacity;
+        this.windowMillis = windowMillis;
+        this.missSampleMask = missSample <= 1 ? 0 : Integer.highestOneBit(missSample - 1) * 2 - 1;
+        this.random = System.identityHashCode(this) | 1;
+        this.tags = new String[capacity];
+        this.counts = new long[capacity];
+        this.rates = new double[capacity];
+        this.heap = new int[capacity];
+        this.keys = new long[capacity];
+        // 负载因子不超过 0.5
+        int indexCapacity = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+        this.indexKeys = new String[indexCapacity];
+        this.indexHashes = new int[indexCapacity];
+        this.indexSlots = new int[indexCapacity];
+        this.indexMask = indexCapacity - 1;
+        this.indexShift = Integer.numberOfLeadingZeros(indexCapacity) + 1;
+        this.windowStart = System.currentTimeMillis();
+    }
+
+    /**
+     * 记录一次分配，返回该 Tag 最近估算的速率 (ID/秒，未跟踪时为 0)
+     */
+    double record(String tag, long amount, long now) {
+        if (now - windowStart >= windowMillis) {
+            rollover(now);
+        }
+        int slot = indexOf(tag);
+        if (slot >= 0) {
+            counts[slot] += amount;
+            return rates[slot];
+        }
+        if (size < capacity) {
+            slot = size++;
+            counts[slot] = amount;
+            keys[slot] = amount;
+            heap[slot] = slot;
+            siftUp(slot);
+        } else {
+            skipped += amount;
+            if (missSampleMask != 0 && (nextRandom() & missSampleMask) != 0) {
+                return 0;
+            }
+            // 替换计数最小的条目：堆顶的键落后于计数时先按计数重新下沉
+            slot = heap[0];
+            while (keys[slot] != counts[slot]) {
+                keys[slot] = counts[slot];
+                siftDown(0);
+                slot = heap[0];
+            }
+            removeIndex(tags[slot]);
+            counts[slot] += skipped;
+            keys[slot] = counts[slot];
+            skipped = 0;
+            siftDown(0);
+        }
+        tags[slot] = tag;
+        rates[slot] = 0;
+        putIndex(tag, slot);
+        return 0;
+    }
+
+    /**
+     * 最近发布的快照；分片长时间无流量时快照不会刷新，超过两个窗口视为过期
+     */
+    List<Entry> snapshot(long now) {
+        return now - snapshotTime > 2 * windowMillis ? List.of() : snapshot;
+    }
+
+    private void rollover(long now) {
+        long elapsed = now - windowStart;
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // 计数每个窗口减半，稳态时约为单窗口用量的 2 倍
+            rates[i] = counts[i] * 1000.0 / (2.0 * Math.max(elapsed, windowMillis));
+            counts[i] >>= 1;
+            keys[i] >>= 1;
+            if (rates[i] > 0) {
+                entries.add(new Entry(tags[i], rates[i]));
+            }
+        }
+        skipped >>= 1;
+        entries.sort(Comparator.comparingDouble(Entry::rate).reversed());
+        snapshot = List.copyOf(entries);
+        snapshotTime = now;
+        windowStart = now;
+    }
+
+    private void siftUp(int i) {
+        int slot = heap[i];
+        long key = keys[slot];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int parentSlot = heap[parent];
+            if (keys[parentSlot] <= key) {
+                break;
+            }
+            heap[i] = parentSlot;
+            i = parent;
+        }
+        heap[i] = slot;
+    }
+
+    private void siftDown(int i) {
+        int slot = heap[i];
+        long key = keys[slot];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            int childSlot = heap[child];
+            if (key <= keys[childSlot]) {
+                break;
+            }
+            heap[i] = childSlot;
+            i = child;
+        }
+        heap[i] = slot;
+    }
+
+    private int indexOf(String tag) {
+        int hash = tag.hashCode();
+        for (int i = home(hash); ; i = (i + 1) & indexMask) {
+            String key = indexKeys[i];
+            if (key == null) {
+                return -1;
+            }
+            // 先比较哈希，未命中时不必读取冷 Tag 的内容
+            if (indexHashes[i] == hash && (key == tag || key.equals(tag))) {
+                return indexSlots[i];
+            }
+        }
+    }
+
+    private void putIndex(String tag, int slot) {
+        int hash = tag.hashCode();
+        int i = home(hash);
+        while (indexKeys[i] != null) {
+            i = (i + 1) & indexMask;
+        }
+        indexKeys[i] = tag;
+        indexHashes[i] = hash;
+        indexSlots[i] = slot;
+    }
+
+    /**
+     * 删除索引项 (tag 为 {@link #tags} 中的同一实例)
+     */
+    private void removeIndex(String tag) {
+        int i = home(tag.hashCode());
+        while (indexKeys[i] != tag) {
+            i = (i + 1) & indexMask;
+        }
+        // 后移补位：把探测链上之后的条目移到空位，保证查找不会提前遇到空位
+        for (int j = (i + 1) & indexMask; indexKeys[j] != null; j = (j + 1) & indexMask) {
+            int start = home(indexHashes[j]);
+            boolean between = i <= j ? i < start && start <= j : i < start || start <= j;
+            if (!between) {
+                indexKeys[i] = indexKeys[j];
+                indexHashes[i] = indexHashes[j];
+                indexSlots[i] = indexSlots[j];
+                i = j;
+            }
+        }
+        indexKeys[i] = null;
+    }
+
+    // xorshift 伪随机数，仅用于采样
+    private int nextRandom() {
+        int x = random;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        random = x;
+        return x;
+    }
+
+    /**
+     * 起始探测位置：乘法哈希取高位 (相邻 Tag 如 order-1、order-2 的 hashCode 也相邻，直接取低位会形成连续的探测簇)
+     */
+    private int home(int hash) {
+        return (hash * 0x9E3779B9) >>> indexShift;
+    }
+
+    record Entry(String bizTag, double rate) {
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.vevoly.id.server.metrics;
+
+import io.github.vevoly.id.server.config.IdServerProperties;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <h3>热点 Tag 跟踪器 (Hot Tag Tracker)</h3>
+ *
+ * <p>
+ * 在引擎线程内统计各 Tag 的分配速率 (每个分片线程一份 {@link HotTagSketch}，内存有界)，
+ * 并据此给出推荐步长：按当前速率，一个号段大约可用 {@code target-refill-interval}。
+ * 同一 Tag 总是路由到同一分片，因此各分片的统计互不重叠，合并时直接取并集。
+ * </p>
+ * <p>
+ * 服务端看到的是该 Tag 所有客户端实例的总速率，推荐步长对应单实例消费全部流量的情况，
+ * 多实例部署时客户端应以自身的步长上限兜底。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Hot Tag Tracker.</b><br>
+ * Bounded per-partition heavy-hitter sketches of allocation rate, used for the actuator
+ * top-K view and for the {@code recommendedStep} returned to clients.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Component
+public class HotTagTracker {
+
+    @Autowired
+    private IdServerProperties properties;
+
+    private final List<HotTagSketch> sketches = new CopyOnWriteArrayList<>();
+
+    private ThreadLocal<HotTagSketch> localSketch;
+
+    private double targetSeconds;
+    private long minStep;
+    private long maxStep;
+
+    @PostConstruct
+    public void init() {
+        IdServerProperties.HotTags config = properties.getHotTags();
+        targetSeconds = config.getTargetRefillInterval().toMillis() / 1000.0;
+        minStep = config.getMinStep();
+        maxStep = config.getMaxStep();
+        long windowMillis = config.getWindow().toMillis();
+        localSketch = ThreadLocal.withInitial(() -> {
+            HotTagSketch sketch = new HotTagSketch(config.getCapacity(), windowMillis, config.getMissSample());
+            sketches.add(sketch);
+            return sketch;
+        });
+    }
+
+    public boolean isEnabled() {
+        return properties.getHotTags().isEnabled();
+    }
+
+    /**
+     * 记录一次分配 (仅在引擎线程调用)，返回该 Tag 的推荐步长，没有足够统计时返回 0
+     */
+    public long record(String bizTag, long amount) {
+        double rate = localSketch.get().record(bizTag, amount, System.currentTimeMillis());
+        return recommendedStep(rate);
+    }
+
+    /**
+     * 全局速率最高的 K 个 Tag
+     */
+    public List<HotTag> topK(int k) {
+        long now = System.currentTimeMillis();
+        List<HotTagSketch.Entry> merged = new ArrayList<>();
+        for (HotTagSketch sketch : sketches) {
+            merged.addAll(sketch.snapshot(now));
+        }
+        merged.sort(Comparator.comparingDouble(HotTagSketch.Entry::rate).reversed());
+        List<HotTag> top = new ArrayList<>(Math.min(k, merged.size()));
+        for (int i = 0; i < merged.size() && i < k; i++) {
+            HotTagSketch.Entry entry = merged.get(i);
+            top.add(new HotTag(entry.bizTag(), entry.rate(), recommendedStep(entry.rate())));
+        }
+        return top;
+    }
+
+    private long recommendedStep(double rate) {
+        if (rate <= 0) {
+            return 0;
+        }
+        long step = (long) Math.ceil(rate * targetSeconds);
+        return Math.max(minStep, Math.min(maxStep, step));
+    }
+
+    /**
+     * 热点 Tag 视图
+     *
+     * @param bizTag          业务标识
+     * @param rate            估算速率 (ID/秒)
+     * @param recommendedStep 推荐步长
+     */
+    public record HotTag(String bizTag, double rate, long recommendedStep) {
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.vevoly.id.server.metrics;
+
+import io.github.vevoly.id.server.config.IdServerProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 热点 Tag 监控端点
+ * URL: GET /actuator/hottags
+ */
+@Component
+@Endpoint(id = "hottags")
+public class HotTagsEndpoint {
+
+    @Autowired
+    private HotTagTracker tracker;
+
+    @Autowired
+    private IdServerProperties properties;
+
+    @ReadOperation
+    public List<HotTagTracker.HotTag> hotTags() {
+        return tracker.topK(properties.getHotTags().getTopK());
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.vevoly.id.server.replication;
+
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.config.ReplicationRole;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * <h3>主节点变更流 (Leader Change Feed)</h3>
+ *
+ * <p>
+ * 处理器每次更新 Tag 的 MaxId 后写入这里：最近的变更保存在定长环形缓冲中供从节点增量拉取 (支持长轮询)。
+ * 从节点落后超过缓冲长度时改为拉取全量快照。
+ * </p>
+ * <p>
+ * 变更流本身不保存每个 Tag 的最新值 (避免以装箱 Map 复制整个 Tag 空间)，快照直接读取引擎各分片的 {@code SequenceTable}。
+ * 快照先取序号、再读取引擎状态；处理器在引擎线程中更新状态并追加变更，
+ * 序号之前的变更在读取时已经生效，之后的变更一定会在增量中再次出现 (按 max 合并，重复应用无副作用)。
+ * 序号从启动时间派生，重启前的序号一定落在缓冲之外，从节点会重新拉取快照而不是跳过重启后的变更。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Leader Change Feed.</b><br>
+ * Bounded ring of recent (tag, maxId) changes with long-poll reads. Followers that fell behind get a full
+ * snapshot read from the engine's sequence tables, so the feed keeps no per-tag copy of its own.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Component
+public class ReplicationFeed {
+
+    @Autowired
+    private IdServerProperties properties;
+
+    private volatile boolean enabled;
+
+    // 环形缓冲 (由 this 保护)
+    private String[] tags;
+    private long[] values;
+    private int capacity;
+    private long sequence;
+    private int waiting;
+
+    @PostConstruct
+    public void init() {
+        IdServerProperties.Replication replication = properties.getReplication();
+        capacity = replication.getFeedCapacity();
+        tags = new String[capacity];
+        values = new long[capacity];
+        // 序号基数: 启动毫秒数 << 20，与重启前的序号不重叠
+        sequence = System.currentTimeMillis() << 20;
+        enabled = replication.getRole() == ReplicationRole.LEADER;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 开启变更流 (从节点提升为主节点时调用)
+     */
+    public void enable() {
+        enabled = true;
+    }
+
+    /**
+     * 记录一次变更 (引擎线程调用)
+     */
+    public void append(String bizTag, long maxId) {
+        synchronized (this) {
+            int slot = (int) (sequence % capacity);
+            tags[slot] = bizTag;
+            values[slot] = maxId;
+            sequence++;
+            if (waiting > 0) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 读取序号 since 之后的变更，暂无变更时最多等待 waitMillis
+     */
+    public synchronized Changes read(long since, int maxBatch, long waitMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        long remaining = waitMillis;
+        while (sequence <= since && remaining > 0) {
+            waiting++;
+            try {
+                wait(remaining);
+            } finally {
+                waiting--;
+            }
+            remaining = deadline - System.currentTimeMillis();
+        }
+        if (since < sequence - capacity || since > sequence) {
+            // 已被覆盖 (或序号来自重启前的主节点)，需要重新拉取快照
+            return new Changes(sequence, true, List.of());
+        }
+        long end = Math.min(sequence, since + maxBatch);
+        List<Change> changes = new ArrayList<>((int) (end - since));
+        for (long seq = since; seq < end; seq++) {
+            int slot = (int) (seq % capacity);
+            changes.add(new Change(tags[slot], values[slot]));
+        }
+        return new Changes(end, false, changes);
+    }
+
+    /**
+     * 全量快照，返回的 next 为读取引擎状态之前的序号
+     *
+     * @param engineState 读取引擎全部分片的 Tag -> MaxId (如 {@code IdAllocService#snapshot})，在取得序号之后调用
+     */
+    public Changes snapshot(Supplier<List<Change>> engineState) {
+        long next;
+        synchronized (this) {
+            next = sequence;
+        }
+        return new Changes(next, false, engineState.get());
+    }
+
+    /**
+     * 一批变更
+     *
+     * @param next      下一次拉取的起始序号
+     * @param truncated 请求的序号已不在缓冲中，需要重新拉取快照
+     * @param changes   变更列表
+     */
+    public record Changes(long next, boolean truncated, List<Change> changes) {
+    }
+
+    /**
+     * 单个 Tag 的变更
+     */
+    public record Change(String bizTag, long maxId) {
+    }
+}
@@ -0,0 +1,300 @@
+package io.github.vevoly.id.server.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.utils.SignatureUtils;
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.config.ReplicationRole;
+import io.github.vevoly.id.server.service.IdAllocService;
+import io.github.vevoly.id.server.service.IdProcessor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <h3>从节点 (Hot Standby Follower)</h3>
+ *
+ * <p>
+ * 从主节点的变更流持续拉取 (长轮询) 各 Tag 的 MaxId，以同步命令提交到本地引擎，
+ * 因此从节点的内存状态、WAL 与持久化都与单机模式走同一条路径，延迟通常在一次网络往返之内。
+ * 从节点不处理申请。
+ * </p>
+ * <p>
+ * <b>提升 (promote)：</b>停止拉取 -> 尽力拉完剩余变更 -> 隔离旧主节点 (fence，使其拒绝后续申请)
+ * -> 把本地状态中每个 Tag 的 MaxId 抬高 {@code promote-gap} (覆盖旧主节点最后尚未同步到的分配)
+ * -> 切换为主节点。
+ * </p>
+ * <p>
+ * Worker 租约 Key 的值是到期时间与申请游标，不是 ID：按所属 Tag 路由到处理其租约命令的分片，提升时不加 {@code promote-gap}。
+ * </p>
+ * <p>
+ * 隔离失败时中止提升并恢复拉取，避免出现两个可写的主节点；
+ * 只有确认旧主节点已宕机且不会再启动时，才能以 {@code force} 强制提升。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Hot Standby Follower.</b><br>
+ * Tails the leader's change feed into the local engine through sync commands and can be
+ * promoted on demand, fencing the old leader and skipping a safety gap per tag.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+@Component
+public class ReplicationFollower implements SmartLifecycle {
+
+    private static final String CHANGES_PATH = "/cluster/replication/changes";
+    private static final String SNAPSHOT_PATH = "/cluster/replication/snapshot";
+    private static final String FENCE_PATH = "/cluster/replication/fence";
+
+    @Autowired
+    private IdServerProperties properties;
+
+    @Autowired
+    private IdAllocService allocService;
+
+    @Autowired
+    private ReplicationState state;
+
+    @Autowired
+    private ReplicationFeed feed;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${j-atomic-ledger.metrics-prefix:atomic-id-server}")
+    private String metricsPrefix;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(3))
+            .build();
+
+    private volatile boolean running;
+    private volatile long lastSyncMillis;
+    private Thread tailer;
+    private long next = -1;
+
+    @Override
+    public void start() {
+        if (properties.getReplication().getRole() != ReplicationRole.FOLLOWER) {
+            return;
+        }
+        Gauge.builder(metricsPrefix + ".replication.staleness", this,
+                        f -> f.lastSyncMillis == 0 ? -1 : System.currentTimeMillis() - f.lastSyncMillis)
+                .description("Time since the follower last caught up with the leader")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        startTailing();
+        log.info(">>> 从节点已启动，主节点: {}", properties.getReplication().getLeaderUrl());
+    }
+
+    @Override
+    public void stop() {
+        stopTailing();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void tailLoop() {
+        IdServerProperties.Replication config = properties.getReplication();
+        while (running) {
+            try {
+                pollOnce(config.getPollWait().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("[replication] pull from leader failed: {}", e.getMessage());
+                try {
+                    Thread.sleep(config.getRetryInterval().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 拉取并应用一批变更 (首次或落后过多时拉取快照)
+     *
+     * @return 是否拉到了变更
+     */
+    private boolean pollOnce(long waitMillis) throws Exception {
+        IdServerProperties.Replication config = properties.getReplication();
+        ReplicationFeed.Changes changes;
+        if (next < 0) {
+            changes = get(SNAPSHOT_PATH, Map.of());
+            log.info("[replication] snapshot loaded, {} tags", changes.changes().size());
+        } else {
+            changes = get(CHANGES_PATH, Map.of(
+                    "since", String.valueOf(next),
+                    "limit", String.valueOf(config.getMaxBatch()),
+                    "waitMs", String.valueOf(waitMillis)));
+            if (changes.truncated()) {
+                log.warn("[replication] follower fell behind the feed, reloading snapshot");
+                next = -1;
+                return true;
+            }
+        }
+        apply(changes.changes(), 0L);
+        next = changes.next();
+        lastSyncMillis = System.currentTimeMillis();
+        return !changes.changes().isEmpty();
+    }
+
+    /**
+     * 以同步命令提交到本地引擎并等待全部完成
+     *
+     * @param gap 业务 Tag 的 MaxId 额外抬高的 ID 数 (Worker 租约 Key 不加)
+     */
+    private void apply(List<ReplicationFeed.Change> changes, long gap) {
+        List<CompletableFuture<AllocResult>> futures = new ArrayList<>(changes.size());
+        for (ReplicationFeed.Change change : changes) {
+            String key = change.bizTag();
+            long maxId = IdProcessor.isWorkerKey(key) ? change.maxId() : change.maxId() + gap;
+            futures.add(allocService.sync(key, IdProcessor.bizTagOf(key), maxId));
+        }
+        for (CompletableFuture<AllocResult> future : futures) {
+            AllocResult result = future.join();
+            if (!result.isSuccess()) {
+                throw new IllegalStateException("Sync command failed: " + result.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 提升为主节点
+     *
+     * @param force 无法隔离旧主节点时仍然提升
+     * @return 抬高 MaxId 的 Tag 数量
+     */
+    public synchronized int promote(boolean force) {
+        if (state.getRole() != ReplicationRole.FOLLOWER) {
+            throw new IllegalStateException("Only a follower can be promoted, current role: " + state.getRole());
+        }
+        IdServerProperties.Replication config = properties.getReplication();
+        // 1. 停止拉取线程
+        stopTailing();
+        // 2. 尽力拉完剩余变更 (旧主节点可能已宕机)
+        try {
+            while (next >= 0 && pollOnce(0)) {
+                // 直到没有新变更
+            }
+        } catch (Exception e) {
+            log.warn("[replication] final catch-up failed: {}", e.getMessage());
+        }
+        // 3. 隔离旧主节点：失败时中止提升，否则旧主节点可能仍在分配
+        try {
+            post(FENCE_PATH);
+            log.info("[replication] old leader fenced");
+        } catch (Exception e) {
+            if (!force) {
+                startTailing();
+                throw new IllegalStateException("Fence old leader failed (" + e.getMessage()
+                        + "), promotion aborted; use force=true only if the old leader is confirmed down");
+            }
+            log.warn("[replication] fence old leader failed, forced promotion: {}", e.getMessage());
+        }
+        // 4. 本地状态中的所有 Tag (含本次运行之前同步到的) 抬高 promote-gap，租约 Key 保持原值
+        List<ReplicationFeed.Change> known = allocService.snapshot();
+        apply(known, config.getPromoteGap());
+        // 5. 清除本节点可能残留的隔离标记 (本节点曾是被隔离的旧主节点)，切换角色，并对后续从节点提供变更流
+        allocService.fence(false);
+        state.promote();
+        feed.enable();
+        log.info("<<< 已提升为主节点，{} 个 Tag 跳过 {} 个 ID", known.size(), config.getPromoteGap());
+        return known.size();
+    }
+
+    private void startTailing() {
+        running = true;
+        tailer = new Thread(this::tailLoop, "j-atomic-id-replication-follower");
+        tailer.setDaemon(true);
+        tailer.start();
+    }
+
+    private void stopTailing() {
+        running = false;
+        Thread t = tailer;
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join(properties.getReplication().getPollWait().toMillis() + 10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            tailer = null;
+        }
+    }
+
+    private ReplicationFeed.Changes get(String path, Map<String, String> params) throws IOException, InterruptedException {
+        StringBuilder url = new StringBuilder(properties.getReplication().getLeaderUrl()).append(path);
+        char sep = '?';
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            url.append(sep).append(entry.getKey()).append('=').append(entry.getValue());
+            sep = '&';
+        }
+        URI uri = URI.create(url.toString());
+        HttpRequest request = signed(HttpRequest.newBuilder(uri), "GET", uri, params)
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Leader returned HTTP " + response.statusCode());
+        }
+        return objectMapper.readValue(response.body(), ReplicationFeed.Changes.class);
+    }
+
+    private void post(String path) throws IOException, InterruptedException {
+        URI uri = URI.create(properties.getReplication().getLeaderUrl() + path);
+        HttpRequest request = signed(HttpRequest.newBuilder(uri), "POST", uri, Map.of())
+                .timeout(Duration.ofSeconds(3))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IOException("Leader returned HTTP " + response.statusCode());
+        }
+    }
+
+    /**
+     * 以管理接口凭证签名 (请求方法与路径计入原文)
+     */
+    private HttpRequest.Builder signed(HttpRequest.Builder builder, String method, URI uri, Map<String, String> params) {
+        IdServerProperties.Admin admin = properties.getAdmin();
+        if (admin.getAppKey() == null || admin.getAppSecret() == null) {
+            return builder;
+        }
+        return builder.header("X-App-Key", admin.getAppKey())
+                .header("X-Timestamp", String.valueOf(System.currentTimeMillis()))
+                .header("X-Signature", SignatureUtils.signRequest(admin.getAppSecret(), method, uri.getRawPath(), params));
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.vevoly.id.server.replication;
+
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.config.ReplicationRole;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 当前节点的复制角色 (运行时可变：从节点提升、旧主节点被隔离)
+ */
+@Component
+public class ReplicationState {
+
+    @Autowired
+    private IdServerProperties properties;
+
+    private volatile ReplicationRole role;
+
+    // 被新主节点隔离后拒绝所有申请 (持久化的标记在各分片的 IdState 中，重启后由处理器恢复)
+    private volatile boolean fenced;
+
+    @PostConstruct
+    public void init() {
+        role = properties.getReplication().getRole();
+    }
+
+    /**
+     * 是否可以处理申请
+     */
+    public boolean isWritable() {
+        return role != ReplicationRole.FOLLOWER && !fenced;
+    }
+
+    public ReplicationRole getRole() {
+        return role;
+    }
+
+    public boolean isFenced() {
+        return fenced;
+    }
+
+    /**
+     * 拒绝申请时返回给客户端的主节点提示
+     */
+    public String leaderHint() {
+        return properties.getReplication().getLeaderUrl();
+    }
+
+    void promote() {
+        role = ReplicationRole.LEADER;
+        fenced = false;
+    }
+
+    public void fence() {
+        fenced = true;
+    }
+}
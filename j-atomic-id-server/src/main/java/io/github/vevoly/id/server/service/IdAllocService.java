@@ -0,0 +1,438 @@
+package io.github.vevoly.id.server.service;
+
+import io.github.vevoly.id.api.domain.AllocCommand;
+import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.exceptions.IdErrorCode;
+import io.github.vevoly.id.api.utils.TxIdGenerator;
+import io.github.vevoly.id.server.cluster.ClusterRouter;
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.domain.IdGeneratorEntity;
+import io.github.vevoly.id.server.domain.IdState;
+import io.github.vevoly.id.server.metrics.AllocMetrics;
+import io.github.vevoly.id.server.replication.ReplicationFeed;
+import io.github.vevoly.id.server.replication.ReplicationState;
+import io.github.vevoly.ledger.core.LedgerEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <h3>ID 申请服务 (ID Allocation Service)</h3>
+ *
+ * <p>
+ * 负责构建 {@link AllocCommand} 并提交到单线程引擎，以 {@link CompletableFuture} 的形式异步返回结果。
+ * 调用方 (HTTP 接口等) 不再阻塞等待引擎，工作线程在提交后立即释放。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>ID Allocation Service.</b><br>
+ * Builds commands, submits them to the ledger engine and exposes the result asynchronously,
+ * so no request thread is parked while the engine works.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+@Service
+public class IdAllocService {
+
+    // 失败结果不可变且高频出现 (过载时)，复用同一个实例
+    private static final AllocResult SERVER_BUSY =
+            AllocResult.fail(IdErrorCode.SERVER_BUSY.getCode(), IdErrorCode.SERVER_BUSY.getMessage());
+
+    private static final AllocResult DEADLINE_EXCEEDED =
+            AllocResult.fail(IdErrorCode.DEADLINE_EXCEEDED.getCode(), IdErrorCode.DEADLINE_EXCEEDED.getMessage());
+
+    private static final AllocResult INVALID_TAG =
+            AllocResult.fail(IdErrorCode.INVALID_PARAMS.getCode(), IdErrorCode.INVALID_PARAMS.getMessage());
+
+    /**
+     * Tag 最大长度：持久化列 biz_tag 为 varchar(128)，需为 Worker 租约 Key 的前后缀 (约 17 个字符) 留出空间
+     */
+    public static final int MAX_TAG_LENGTH = 100;
+
+    /**
+     * 客户端事务 ID 最大长度
+     */
+    public static final int MAX_TX_ID_LENGTH = 64;
+
+    @Autowired
+    private LedgerEngine<IdState, AllocCommand, IdGeneratorEntity> engine;
+
+    @Autowired
+    private IdServerProperties properties;
+
+    @Autowired
+    private AllocMetrics metrics;
+
+    @Autowired
+    private ClusterRouter clusterRouter;
+
+    @Autowired
+    private ReplicationState replicationState;
+
+    @Autowired
+    private RecentResultCache recentResults;
+
+    @Value("${j-atomic-ledger.partitions:1}")
+    private int partitions;
+
+    // count=1 请求合并器，Key: bizTag
+    private final Map<String, TagCoalescer> coalescers = new ConcurrentHashMap<>();
+
+    /**
+     * 异步申请 ID 号段 (Asynchronously Allocate ID Segment).
+     * <p>
+     * 开启合并时，同一 Tag 并发的 {@code count=1} 请求会被合并为一条引擎命令，
+     * 再按到达顺序把号段拆分给各个调用方，每个调用方仍拿到严格递增的单个 ID。
+     * </p>
+     *
+     * @param tag   业务标识
+     * @param count 申请数量
+     * @return 申请结果，超时或失败时以失败结果正常完成 (不会异常完成)；
+     *         Tag 不属于本节点时返回 {@code NOT_OWNER}，message 为归属节点地址
+     */
+    public CompletableFuture<AllocResult> alloc(String tag, int count) {
+        return alloc(tag, count, 0L);
+    }
+
+    /**
+     * 携带调用方截止时间的申请：截止时间已过的请求不进入引擎，在引擎中排队期间过期的命令不再分配
+     *
+     * @param deadline 调用方截止时间 (epoch 毫秒)，0 表示不限
+     */
+    public CompletableFuture<AllocResult> alloc(String tag, int count, long deadline) {
+        if (!isValidTag(tag)) {
+            return CompletableFuture.completedFuture(INVALID_TAG);
+        }
+        // 从节点或已被隔离的旧主节点不处理申请，message 携带主节点地址
+        if (!replicationState.isWritable()) {
+            return CompletableFuture.completedFuture(
+                    AllocResult.fail(IdErrorCode.NOT_LEADER.getCode(), replicationState.leaderHint()));
+        }
+        // 集群模式：不属于本节点的 Tag 直接拒绝，message 携带归属节点地址作为重定向提示
+        if (!clusterRouter.isLocal(tag)) {
+            return CompletableFuture.completedFuture(
+                    AllocResult.fail(IdErrorCode.NOT_OWNER.getCode(), clusterRouter.ownerAddress(tag)));
+        }
+        // 成员变更后迁入的 Tag：接管原归属节点的 MaxId 之前不服务
+        if (clusterRouter.isHandingOver(tag)) {
+            return CompletableFuture.completedFuture(SERVER_BUSY);
+        }
+        if (count == 1 && properties.getAlloc().isCoalesce()) {
+            return coalesce(tag, deadline);
+        }
+        return submit(tag, count, deadline);
+    }
+
+    /**
+     * 携带客户端事务 ID 的申请：同一 AppKey、Tag、txId 的重试返回首次申请的结果 (含仍在处理中的)
+     *
+     * @param appKey   客户端 AppKey (鉴权关闭时可为 null)
+     * @param txId     客户端事务 ID，为 null 时等同 {@link #alloc(String, int, long)}
+     * @param deadline 调用方截止时间 (epoch 毫秒)，0 表示不限
+     */
+    public CompletableFuture<AllocResult> alloc(String tag, int count, String appKey, String txId, long deadline) {
+        if (txId == null || !recentResults.isEnabled()) {
+            return alloc(tag, count, deadline);
+        }
+        return recentResults.computeIfAbsent(appKey, tag, txId, () -> alloc(tag, count, deadline));
+    }
+
+    /**
+     * 客户端 Tag 校验：非空、不超过 {@link #MAX_TAG_LENGTH}、不使用服务端保留前缀
+     */
+    public static boolean isValidTag(String tag) {
+        return tag != null && !tag.isEmpty() && tag.length() <= MAX_TAG_LENGTH && !IdProcessor.isReservedKey(tag);
+    }
+
+    /**
+     * 客户端事务 ID 校验：为 null (不幂等) 或非空且不超过 {@link #MAX_TX_ID_LENGTH}
+     */
+    public static boolean isValidTxId(String txId) {
+        return txId == null || !txId.isEmpty() && txId.length() <= MAX_TX_ID_LENGTH;
+    }
+
+    /**
+     * 申请数量校验：大于 0 且不超过 {@code alloc.max-count}
+     */
+    public boolean isValidCount(int count) {
+        return count > 0 && count <= properties.getAlloc().getMaxCount();
+    }
+
+    /**
+     * 把 Key 的值抬高到不小于 maxId (从节点追赶主节点、成员变更接管时使用)
+     *
+     * @param key        SequenceTable 中的 Key (业务 Tag 或 Worker 租约 Key)
+     * @param routingKey 路由键，须为 {@link IdProcessor#bizTagOf(String) Key 所属的 Tag}，
+     *                   保证写入处理该 Tag 申请 / 租约的同一分片
+     */
+    public CompletableFuture<AllocResult> sync(String key, String routingKey, long maxId) {
+        AllocCommand cmd = new AllocCommand();
+        cmd.setType(AllocCommand.TYPE_SYNC);
+        cmd.setRoutingKey(routingKey);
+        cmd.setSyncMax(maxId);
+        return submit(cmd, key);
+    }
+
+    /**
+     * 申请或续约 Worker ID 租约 (TIME_LEASED 模式)
+     *
+     * @param tag        业务标识
+     * @param workerId   续约的 Worker ID，-1 表示申请新的
+     * @param token      续约凭证 (上次返回的到期时间)
+     * @param ttlMillis  租约时长
+     * @param maxWorkers Worker ID 上限 (不含)
+     * @return 成功时 minId 为 Worker ID，maxId 为到期时间 (下次续约的凭证)
+     */
+    public CompletableFuture<AllocResult> leaseWorker(String tag, long workerId, long token, long ttlMillis, int maxWorkers) {
+        if (!isValidTag(tag)) {
+            return CompletableFuture.completedFuture(INVALID_TAG);
+        }
+        if (!replicationState.isWritable()) {
+            return CompletableFuture.completedFuture(
+                    AllocResult.fail(IdErrorCode.NOT_LEADER.getCode(), replicationState.leaderHint()));
+        }
+        if (!clusterRouter.isLocal(tag)) {
+            return CompletableFuture.completedFuture(
+                    AllocResult.fail(IdErrorCode.NOT_OWNER.getCode(), clusterRouter.ownerAddress(tag)));
+        }
+        // 成员变更后迁入的 Tag：接管原归属节点的 MaxId 之前不服务
+        if (clusterRouter.isHandingOver(tag)) {
+            return CompletableFuture.completedFuture(SERVER_BUSY);
+        }
+        AllocCommand cmd = new AllocCommand();
+        cmd.setType(AllocCommand.TYPE_LEASE);
+        cmd.setWorkerId(workerId);
+        cmd.setLeaseToken(token);
+        cmd.setLeaseTtl(ttlMillis);
+        cmd.setMaxWorkers(maxWorkers);
+        cmd.setLeaseTime(System.currentTimeMillis());
+        return submit(cmd, tag);
+    }
+
+    /**
+     * 隔离 / 解除隔离本节点的全部引擎分片 (同步等待)，隔离标记随 WAL 与快照持久化
+     */
+    public void fence(boolean fenceOn) {
+        broadcast(AllocCommand.TYPE_FENCE, fenceOn);
+    }
+
+    /**
+     * 读取全部引擎分片中各 Tag 的 MaxId (同步等待)，同一 Tag 出现在多个分片时由调用方按 max 合并
+     */
+    public List<ReplicationFeed.Change> snapshot() {
+        List<ReplicationFeed.Change> changes = new ArrayList<>();
+        for (Object payload : broadcast(AllocCommand.TYPE_SNAPSHOT, false)) {
+            @SuppressWarnings("unchecked")
+            List<ReplicationFeed.Change> partition = (List<ReplicationFeed.Change>) payload;
+            changes.addAll(partition);
+        }
+        return changes;
+    }
+
+    /**
+     * 向每个引擎分片各提交一条控制命令。
+     * <p>分片由路由键的哈希决定，这里依次使用不同的控制路由键提交，直到处理过命令的分片状态覆盖全部分片。</p>
+     *
+     * @return 各分片的结果 (按首次到达的分片去重)
+     */
+    private List<Object> broadcast(byte type, boolean fenceOn) {
+        long timeoutMillis = properties.getAlloc().getTimeout().toMillis();
+        Map<IdState, Object> reached = new IdentityHashMap<>();
+        for (int i = 0; reached.size() < partitions; i++) {
+            if (i >= partitions * 64) {
+                throw new IllegalStateException("Control command reached only " + reached.size() + " of " + partitions + " partitions");
+            }
+            AllocCommand cmd = new AllocCommand();
+            cmd.setType(type);
+            cmd.setFenceOn(fenceOn);
+            cmd.setTxId(TxIdGenerator.next());
+            cmd.setBizTag(IdProcessor.CONTROL_KEY_PREFIX + i);
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            cmd.setFuture(future);
+            engine.submit(cmd);
+            IdProcessor.PartitionResult result =
+                    (IdProcessor.PartitionResult) future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).join();
+            reached.putIfAbsent(result.partition(), result.payload());
+        }
+        return new ArrayList<>(reached.values());
+    }
+
+    private CompletableFuture<AllocResult> submit(String tag, int count, long deadline) {
+        AllocCommand cmd = new AllocCommand();
+        cmd.setCount(count);
+        cmd.setDeadline(deadline);
+        return submit(cmd, tag);
+    }
+
+    private CompletableFuture<AllocResult> submit(AllocCommand cmd, String tag) {
+        // 1. 调用方已放弃的请求不进入引擎 (不排队、不写 WAL)
+        long timeoutMillis = properties.getAlloc().getTimeout().toMillis();
+        if (cmd.getDeadline() != 0) {
+            long remaining = cmd.getDeadline() - System.currentTimeMillis();
+            if (remaining <= 0) {
+                metrics.expiredAtSubmit();
+                return CompletableFuture.completedFuture(DEADLINE_EXCEEDED);
+            }
+            timeoutMillis = Math.min(timeoutMillis, remaining);
+        }
+
+        // 2. 构建命令
+        cmd.setTxId(TxIdGenerator.next());
+        cmd.setBizTag(tag);
+        int count = cmd.getCount();
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        cmd.setFuture(future);
+
+        long start = System.nanoTime();
+        cmd.setSubmitNanos(start);
+        metrics.commandSubmitted();
+        try {
+            // 3. 提交到单线程引擎
+            engine.submit(cmd);
+        } catch (Exception e) {
+            metrics.commandFinished();
+            log.error("[alloc] engine submit failed, tag={}", tag, e);
+            return CompletableFuture.completedFuture(SERVER_BUSY);
+        }
+
+        // 4. 异步等待结果 (不占用调用线程，最多等到调用方截止时间)
+        return future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((result, ex) -> {
+                    long now = System.nanoTime();
+                    metrics.commandFinished();
+                    metrics.recordEngineWait(tag, now - start);
+                    if (cmd.getCompleteNanos() != 0) {
+                        metrics.recordComplete(now - cmd.getCompleteNanos());
+                    }
+                    if (ex == null) {
+                        return (AllocResult) result;
+                    }
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof TimeoutException) {
+                        log.warn("[alloc] timeout, tag={}, count={}", tag, count);
+                        return SERVER_BUSY;
+                    }
+                    log.error("[alloc] execution error", cause);
+                    return AllocResult.fail(IdErrorCode.INTERNAL_ERROR.getCode(), cause.getMessage());
+                });
+    }
+
+    /**
+     * 入队与空闲移除都在 {@link ConcurrentHashMap#compute} 内完成 (同一 Tag 互斥)，
+     * 保证请求不会加入已被移除的合并器，同一 Tag 也不会同时存在两个合并器。
+     */
+    private CompletableFuture<AllocResult> coalesce(String tag, long deadline) {
+        CompletableFuture<AllocResult> future = new CompletableFuture<>();
+        Waiter waiter = new Waiter(future, deadline);
+        TagCoalescer coalescer = coalescers.compute(tag, (key, current) -> {
+            TagCoalescer target = current != null ? current : new TagCoalescer(key);
+            target.waiters.add(waiter);
+            return target;
+        });
+        coalescer.drain();
+        return future;
+    }
+
+    /**
+     * 单个 Tag 的请求合并器.
+     * <p>
+     * 同一时刻每个 Tag 最多只有一条合并命令在引擎中，命令执行期间到达的请求排队，
+     * 上一条命令完成后一次性打包提交。因此请求越密集，合并度越高，空闲时不增加额外延迟。
+     * </p>
+     */
+    private final class TagCoalescer {
+
+        private final String tag;
+        // 双端队列：号段不足时未分配的请求放回队首，保持到达顺序
+        private final Deque<Waiter> waiters = new ConcurrentLinkedDeque<>();
+        private final AtomicBoolean inFlight = new AtomicBoolean(false);
+
+        TagCoalescer(String tag) {
+            this.tag = tag;
+        }
+
+        private void drain() {
+            while (!waiters.isEmpty() && inFlight.compareAndSet(false, true)) {
+                // 按到达顺序取出一批，排队期间已过期的请求直接拒绝
+                int max = properties.getAlloc().getCoalesceMaxBatch();
+                long now = System.currentTimeMillis();
+                List<Waiter> batch = new ArrayList<>();
+                // 合并命令的截止时间取批内最晚的，任一请求不限时则不限
+                long deadline = Long.MIN_VALUE;
+                Waiter waiter;
+                while (batch.size() < max && (waiter = waiters.poll()) != null) {
+                    if (waiter.deadline() != 0 && waiter.deadline() <= now) {
+                        metrics.expiredAtSubmit();
+                        waiter.future().complete(DEADLINE_EXCEEDED);
+                        continue;
+                    }
+                    batch.add(waiter);
+                    deadline = waiter.deadline() == 0 || deadline == 0 ? 0 : Math.max(deadline, waiter.deadline());
+                }
+                if (batch.isEmpty()) {
+                    // 整批都已过期：同样走空闲移除
+                    release();
+                    continue;
+                }
+                // 异步回调：避免在引擎线程上再次 submit
+                submit(tag, batch.size(), deadline).thenAcceptAsync(result -> complete(batch, result));
+                return;
+            }
+        }
+
+        private void complete(List<Waiter> batch, AllocResult result) {
+            if (result.isSuccess()) {
+                // 号段 [minId, maxId] 按到达顺序逐个拆分
+                long id = result.getMinId();
+                int i = 0;
+                for (; i < batch.size() && id <= result.getMaxId(); i++, id++) {
+                    batch.get(i).future().complete(AllocResult.success(id, id));
+                }
+                // 号段少于请求数 (交错号段不跨块)：剩余请求逆序放回队首，仍先于后到的请求分配。
+                // 此时 inFlight 仍为 true，不会有其他线程同时出队
+                for (int j = batch.size() - 1; j >= i; j--) {
+                    waiters.addFirst(batch.get(j));
+                }
+            } else {
+                for (Waiter waiter : batch) {
+                    waiter.future().complete(result);
+                }
+            }
+            release();
+            drain();
+        }
+
+        /**
+         * 结束本轮在途状态；队列为空时移除合并器，避免海量 Tag 常驻内存。
+         * 在 compute 内复查队列与在途状态，与 coalesce 入队互斥
+         */
+        private void release() {
+            inFlight.set(false);
+            if (waiters.isEmpty()) {
+                coalescers.computeIfPresent(tag, (key, current) ->
+                        current == this && waiters.isEmpty() && !inFlight.get() ? null : current);
+            }
+        }
+    }
+
+    private record Waiter(CompletableFuture<AllocResult> future, long deadline) {
+    }
+}
@@ -1,42 +1,35 @@
 package io.github.vevoly.id.server.service;
 
 import io.github.vevoly.id.api.domain.AllocCommand;
-import io.github.vevoly.id.server.domain.IdGeneratorEntity;
 import io.github.vevoly.id.server.domain.IdState;
-import io.github.vevoly.id.server.mapper.IdGeneratorMapper;
+import io.github.vevoly.id.server.store.IdStore;
 import io.github.vevoly.ledger.api.LedgerBootstrap;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
 public class IdBootstrap implements LedgerBootstrap<IdState, AllocCommand> {
 
     @Autowired
-    private IdGeneratorMapper idMapper;
+    private IdStore idStore;
 
     /**
-     * 从数据库加载初始状态
+     * 从持久化后端加载初始状态
      * 只有在本地没有快照文件时（冷启动）才会执行这里
      */
     @Override
     public IdState getInitialState() {
-        log.info(">>> 检测到本地无快照，正在从数据库加载全量 ID 数据...");
+        log.info(">>> 检测到本地无快照，正在从 {} 加载全量 ID 数据...", idStore.getClass().getSimpleName());
         IdState state = new IdState();
-        // 1. 查询所有业务 Tag (SELECT * FROM t_id_generator)
-        // 如果 Tag 达到百万级，建议使用分页查询 (MyBatis-Plus Pagination) 循环加载。
-        List<IdGeneratorEntity> allTags = idMapper.selectList(null);
-
-        // 2. 将数据装入内存 Map
-        // 数据库的一行记录 -> Map 的一个 Entry
-        for (IdGeneratorEntity entity : allTags) {
-            // Key: bizTag, Value: maxId
-            state.getSequences().put(entity.getBizTag(), entity.getMaxId());
-        }
-        log.info("<<< 初始状态加载完成，共加载 {} 个业务 Tag。", allTags.size());
+        long start = System.nanoTime();
+        long loaded = idStore.load(state.getSequenceTable());
+        long cost = System.nanoTime() - start;
+        log.info("<<< 初始状态加载完成，共加载 {} 个业务 Tag，耗时 {} ms，速率 {} rows/s。",
+                loaded, TimeUnit.NANOSECONDS.toMillis(cost), cost <= 0 ? loaded : loaded * TimeUnit.SECONDS.toNanos(1) / cost);
 
         // 返回填充好的状态对象
         return state;
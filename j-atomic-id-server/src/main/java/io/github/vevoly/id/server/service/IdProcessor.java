@@ -2,45 +2,324 @@ package io.github.vevoly.id.server.service;
 
 import io.github.vevoly.id.api.domain.AllocCommand;
 import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.exceptions.IdErrorCode;
+import io.github.vevoly.id.server.config.IdServerProperties;
 import io.github.vevoly.id.server.domain.IdGeneratorEntity;
 import io.github.vevoly.id.server.domain.IdState;
+import io.github.vevoly.id.server.domain.SequenceTable;
+import io.github.vevoly.id.server.metrics.AllocMetrics;
+import io.github.vevoly.id.server.metrics.HotTagTracker;
+import io.github.vevoly.id.server.replication.ReplicationFeed;
+import io.github.vevoly.id.server.replication.ReplicationState;
 import io.github.vevoly.ledger.api.BusinessProcessor;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 @Service
 public class IdProcessor implements BusinessProcessor<IdState, AllocCommand, IdGeneratorEntity> {
 
+    // Worker 租约 Key 前缀: __worker__/{bizTag}/{workerId}
+    private static final String WORKER_KEY_PREFIX = "__worker__/";
+
+    // Worker 租约申请游标: __worker__/{bizTag}/next
+    private static final String WORKER_CURSOR_SUFFIX = "/next";
+
+    // 控制命令的路由键前缀 (不写入 SequenceTable)
+    static final String CONTROL_KEY_PREFIX = "__control__/";
+
+    // 单条租约申请命令最多检查的 Worker ID 数 (引擎线程上的工作量与客户端的 maxWorkers 无关)
+    private static final int LEASE_SCAN_LIMIT = 64;
+
+    private static final AllocResult DEADLINE_EXCEEDED =
+            AllocResult.fail(IdErrorCode.DEADLINE_EXCEEDED.getCode(), IdErrorCode.DEADLINE_EXCEEDED.getMessage());
+
+    @Autowired
+    private IdServerProperties properties;
+
+    @Autowired
+    private AllocMetrics metrics;
+
+    @Autowired
+    private HotTagTracker hotTagTracker;
+
+    @Autowired
+    private ReplicationFeed replicationFeed;
+
+    @Autowired
+    private ReplicationState replicationState;
+
+    // 交错号段模式的 Tag (启动后只读)
+    private Set<String> interleavedTags = Set.of();
+    private long blockSize;
+    private long instanceIndex;
+    private long instanceCount;
+
+    @PostConstruct
+    public void init() {
+        IdServerProperties.Interleave interleave = properties.getInterleave();
+        if (interleave.isEnabled()) {
+            if (interleave.getInstanceIndex() < 0 || interleave.getInstanceIndex() >= interleave.getInstanceCount()
+                    || interleave.getBlockSize() <= 0) {
+                throw new IllegalStateException("Invalid interleave config: " + interleave);
+            }
+            interleavedTags = new HashSet<>(interleave.getTags());
+            blockSize = interleave.getBlockSize();
+            instanceIndex = interleave.getInstanceIndex();
+            instanceCount = interleave.getInstanceCount();
+        }
+    }
+
     @Override
     public IdGeneratorEntity process(IdState state, AllocCommand cmd) {
+        // 0. 在线命令排队期间调用方已放弃：不分配、不落库 (回放命令没有 Future，一律处理，保证回放状态不低于在线状态)
+        if (cmd.getDeadline() != 0 && cmd.getFuture() != null && System.currentTimeMillis() >= cmd.getDeadline()) {
+            metrics.expiredAtProcess();
+            cmd.getFuture().complete(DEADLINE_EXCEEDED);
+            return null;
+        }
+        if (cmd.isControl()) {
+            return processControl(state, cmd);
+        }
+        // 已被隔离的分片拒绝申请与租约 (隔离标记随 WAL / 快照持久化，旧主节点重启后同样生效)
+        if (state.isFenced() && !cmd.isSync()) {
+            replicationState.fence();
+            if (cmd.getFuture() != null) {
+                cmd.getFuture().complete(AllocResult.fail(IdErrorCode.NOT_LEADER.getCode(), replicationState.leaderHint()));
+            }
+            return null;
+        }
+        if (cmd.isLease()) {
+            return processLease(state, cmd);
+        }
+        // 回放命令没有 Future，也没有提交时间，不参与计时
+        boolean timed = cmd.getFuture() != null && cmd.getSubmitNanos() != 0 && metrics.isStageTimers();
+        long start = timed ? System.nanoTime() : 0L;
+        if (timed) {
+            metrics.recordQueue(start - cmd.getSubmitNanos());
+        }
+
         // 1. 获取申请数量
         int count = cmd.getCount();
         if (count <= 0) count = 1; // 默认给1个
 
-        // 2. 获取当前 MaxId
-        // 如果是新业务 Tag，默认从 0 开始
-        long currentMax = state.getSequences().getOrDefault(cmd.getBizTag(), 0L);
+        long currentMax;
+        long nextMax;
+        if (cmd.isSync()) {
+            // 2''. 同步命令 (从节点)：MaxId 只增不减，不产生号段
+            SequenceTable table = state.getSequenceTable();
+            currentMax = table.get(cmd.getBizTag(), 0L);
+            nextMax = Math.max(currentMax, cmd.getSyncMax());
+            table.put(cmd.getBizTag(), nextMax);
+            count = 0;
+        } else if (!interleavedTags.isEmpty() && interleavedTags.contains(cmd.getBizTag())) {
+            // 2'. 交错号段：只在本实例拥有的块内分配，单次结果不跨块 (可能少于申请数量)
+            SequenceTable table = state.getSequenceTable();
+            currentMax = alignToOwnedBlock(table.get(cmd.getBizTag(), 0L) + 1) - 1;
+            long blockEnd = ((currentMax / blockSize) + 1) * blockSize;
+            nextMax = Math.min(currentMax + count, blockEnd);
+            table.put(cmd.getBizTag(), nextMax);
+            count = (int) (nextMax - currentMax);
+        } else {
+            // 2. 获取当前 MaxId 并更新内存 (一次探测，无装箱)
+            // 如果是新业务 Tag，默认从 0 开始
+            currentMax = state.getSequenceTable().getAndAdd(cmd.getBizTag(), count);
 
-        // 3. 计算新的 MaxId
-        long nextMax = currentMax + count;
+            // 3. 计算新的 MaxId
+            nextMax = currentMax + count;
+        }
 
-        // 4. 更新内存
-        state.getSequences().put(cmd.getBizTag(), nextMax);
+        // 主节点：写入变更流供从节点追赶
+        if (replicationFeed.isEnabled()) {
+            replicationFeed.append(cmd.getBizTag(), nextMax);
+        }
 
-        // 5. 返回结果给 Controller
-        if (cmd.getFuture() != null) {
+        // 4. 返回结果给 Controller
+        if (cmd.isSync()) {
+            if (cmd.getFuture() != null) {
+                cmd.getFuture().complete(AllocResult.success(nextMax, nextMax));
+            }
+        } else if (cmd.getFuture() != null) {
+            // 统计 Tag 速率并给出推荐步长 (回放命令不计入)
+            long recommendedStep = hotTagTracker.isEnabled() ? hotTagTracker.record(cmd.getBizTag(), count) : 0L;
             // 返回号段: (currentMax, nextMax]
-            AllocResult result = AllocResult.success(currentMax + 1, nextMax);
+            AllocResult result = AllocResult.success(currentMax + 1, nextMax, recommendedStep);
+            if (timed) {
+                long now = System.nanoTime();
+                metrics.recordProcess(now - start);
+                cmd.setCompleteNanos(now);
+            }
             cmd.getFuture().complete(result);
         }
 
+        // 5. 租约模式：只有内存 MaxId 越过已落库的上界时，才落库新的上界 (nextMax + lease)
+        long persistMax = nextMax;
+        IdServerProperties.Lease lease = properties.getPersist().getLease();
+        if (lease.isEnabled()) {
+            SequenceTable leaseTable = state.getLeaseTable();
+            if (nextMax <= leaseTable.get(cmd.getBizTag(), 0L)) {
+                return null; // 仍在租约内，无需落库
+            }
+            persistMax = nextMax + lease.sizeOf(cmd.getBizTag());
+            leaseTable.put(cmd.getBizTag(), persistMax);
+        }
+
         // 6. 返回增量实体用于落库
         IdGeneratorEntity idGeneratorEntity = new IdGeneratorEntity();
         idGeneratorEntity.setBizTag(cmd.getBizTag());
-        idGeneratorEntity.setMaxId(nextMax);
+        idGeneratorEntity.setMaxId(persistMax);
         idGeneratorEntity.setStep(count);
-        idGeneratorEntity.setUpdateTime(new Date());
+        // update_time 由 SQL 中的 NOW() 填充，这里不再创建 Date
+        metrics.entityProduced();
         return idGeneratorEntity;
     }
+
+    /**
+     * 复制控制命令：隔离标记写入本分片状态；快照复制出本分片全部 Tag 的 MaxId。
+     * 结果附带本分片的状态对象，调用方据此确认已覆盖全部分片。
+     */
+    private IdGeneratorEntity processControl(IdState state, AllocCommand cmd) {
+        Object payload = null;
+        if (cmd.getType() == AllocCommand.TYPE_FENCE) {
+            state.setFenced(cmd.isFenceOn());
+            if (cmd.isFenceOn()) {
+                replicationState.fence();
+            }
+        } else if (cmd.getFuture() != null) {
+            SequenceTable table = state.getSequenceTable();
+            List<ReplicationFeed.Change> changes = new ArrayList<>(table.size());
+            table.forEach((tag, maxId) -> changes.add(new ReplicationFeed.Change(tag, maxId)));
+            payload = changes;
+        }
+        if (cmd.getFuture() != null) {
+            cmd.getFuture().complete(new PartitionResult(state, payload));
+        }
+        return null;
+    }
+
+    /**
+     * 控制命令在单个分片上的结果
+     *
+     * @param partition 处理该命令的分片状态 (仅用于区分分片)
+     * @param payload   快照命令为 {@code List<ReplicationFeed.Change>}，隔离命令为 null
+     */
+    record PartitionResult(IdState partition, Object payload) {
+    }
+
+    /**
+     * Worker ID 租约.
+     * <p>
+     * 每个 Worker 的到期时间以保留 Key {@code __worker__/{bizTag}/{workerId}} 存在 {@link SequenceTable} 中，
+     * 申请游标存在 {@code __worker__/{bizTag}/next}，
+     * 与普通 Tag 一样经过 WAL、快照、落库与主从复制。到期时间同时作为续约凭证：
+     * 只有持有最新到期时间且尚未过期的实例才能续约，过期 (加宽限期) 的 Worker ID 才会分配给其他实例。
+     * 所有时间取自命令中记录的受理时间，回放结果与首次执行一致。
+     * </p>
+     */
+    private IdGeneratorEntity processLease(IdState state, AllocCommand cmd) {
+        SequenceTable table = state.getSequenceTable();
+        long now = cmd.getLeaseTime();
+        long ttl = Math.min(cmd.getLeaseTtl(), properties.getWorkerLease().getMaxTtl().toMillis());
+        long grace = properties.getWorkerLease().getGrace().toMillis();
+
+        String key = null;
+        long workerId = -1;
+        long expiry = 0;
+        if (cmd.getWorkerId() >= 0 && cmd.getLeaseToken() != 0) {
+            // 1. 续约：凭证必须与当前到期时间一致且尚未过期
+            key = workerKey(cmd.getBizTag(), cmd.getWorkerId());
+            long current = table.get(key, 0L);
+            if (current == cmd.getLeaseToken() && current >= now) {
+                workerId = cmd.getWorkerId();
+                expiry = Math.max(now + ttl, current + 1);
+            }
+        } else {
+            // 2. 申请：从该 Tag 的游标处开始，最多检查 LEASE_SCAN_LIMIT 个 Worker ID，取第一个已过期 (含宽限期) 的
+            int maxWorkers = Math.min(cmd.getMaxWorkers(), properties.getWorkerLease().getMaxWorkers());
+            String cursorKey = WORKER_KEY_PREFIX + cmd.getBizTag() + WORKER_CURSOR_SUFFIX;
+            long cursor = table.get(cursorKey, 0L);
+            int scan = Math.min(maxWorkers, LEASE_SCAN_LIMIT);
+            int i = 0;
+            for (; i < scan; i++) {
+                long candidateId = Math.floorMod(cursor + i, maxWorkers);
+                String candidate = workerKey(cmd.getBizTag(), candidateId);
+                long current = table.get(candidate, 0L);
+                if (current + grace < now) {
+                    key = candidate;
+                    workerId = candidateId;
+                    expiry = Math.max(now + ttl, current + 1);
+                    break;
+                }
+            }
+            // 下次申请从本次检查过的位置之后继续 (游标随状态回放，结果与首次执行一致)
+            table.put(cursorKey, cursor + Math.min(i + 1, scan));
+        }
+
+        if (workerId < 0) {
+            if (cmd.getFuture() != null) {
+                IdErrorCode code = cmd.getWorkerId() >= 0 ? IdErrorCode.LEASE_EXPIRED : IdErrorCode.NO_WORKER_AVAILABLE;
+                cmd.getFuture().complete(AllocResult.fail(code.getCode(), code.getMessage()));
+            }
+            return null;
+        }
+        table.put(key, expiry);
+        if (replicationFeed.isEnabled()) {
+            replicationFeed.append(key, expiry);
+        }
+        if (cmd.getFuture() != null) {
+            // minId: Worker ID, maxId: 到期时间 (下次续约的凭证)
+            cmd.getFuture().complete(AllocResult.success(workerId, expiry));
+        }
+
+        IdGeneratorEntity idGeneratorEntity = new IdGeneratorEntity();
+        idGeneratorEntity.setBizTag(key);
+        idGeneratorEntity.setMaxId(expiry);
+        idGeneratorEntity.setStep(0);
+        metrics.entityProduced();
+        return idGeneratorEntity;
+    }
+
+    private static String workerKey(String bizTag, long workerId) {
+        return WORKER_KEY_PREFIX + bizTag + "/" + workerId;
+    }
+
+    /**
+     * 是否为服务端保留的 Key (Worker 租约、控制命令)，客户端不能以此作为 Tag
+     */
+    public static boolean isReservedKey(String key) {
+        return key.startsWith(WORKER_KEY_PREFIX) || key.startsWith(CONTROL_KEY_PREFIX);
+    }
+
+    /**
+     * 是否为 Worker 租约 Key (到期时间或申请游标，值不是 ID)
+     */
+    public static boolean isWorkerKey(String key) {
+        return key.startsWith(WORKER_KEY_PREFIX);
+    }
+
+    /**
+     * SequenceTable 中的 Key 所属的业务 Tag (Worker 租约 Key 归属于其 Tag)
+     */
+    public static String bizTagOf(String key) {
+        int end = key.lastIndexOf('/');
+        if (key.startsWith(WORKER_KEY_PREFIX) && end > WORKER_KEY_PREFIX.length()) {
+            return key.substring(WORKER_KEY_PREFIX.length(), end);
+        }
+        return key;
+    }
+
+    /**
+     * 返回不小于 id 且属于本实例的第一个 ID。
+     * 块 k 覆盖 [k * blockSize + 1, (k + 1) * blockSize]，块序号 k ≡ instanceIndex (mod instanceCount) 的块属于本实例。
+     */
+    private long alignToOwnedBlock(long id) {
+        long block = (id - 1) / blockSize;
+        long offset = Math.floorMod(instanceIndex - block, instanceCount);
+        return offset == 0 ? id : (block + offset) * blockSize + 1;
+    }
 }
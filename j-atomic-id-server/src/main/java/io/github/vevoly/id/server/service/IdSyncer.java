@@ -1,21 +1,58 @@
 package io.github.vevoly.id.server.service;
 
 import io.github.vevoly.id.server.domain.IdGeneratorEntity;
-import io.github.vevoly.id.server.mapper.IdGeneratorMapper;
+import io.github.vevoly.id.server.metrics.AllocMetrics;
+import io.github.vevoly.id.server.store.IdStore;
 import io.github.vevoly.ledger.api.BatchWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class IdSyncer implements BatchWriter<IdGeneratorEntity> {
 
     @Autowired
-    private IdGeneratorMapper idMapper;
+    private IdStore idStore;
+
+    @Autowired
+    private AllocMetrics metrics;
 
     @Override
     public void persist(List<IdGeneratorEntity> entities) {
-        idMapper.batchUpsert(entities);
+        long since = metrics.beginPersist();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            write(entities);
+            success = true;
+        } finally {
+            metrics.endPersist(since, System.nanoTime() - start, success);
+        }
+    }
+
+    private void write(List<IdGeneratorEntity> entities) {
+        // 1. 按 Tag 合并：同一批次中热点 Tag 可能出现上千次，只需保留最大的 maxId
+        Map<String, IdGeneratorEntity> latest = new HashMap<>();
+        for (IdGeneratorEntity entity : entities) {
+            if (entity == null) {
+                continue;
+            }
+            latest.merge(entity.getBizTag(), entity, (a, b) -> a.getMaxId() >= b.getMaxId() ? a : b);
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+
+        // 2. 按 biz_tag 排序，保证并发刷盘时按相同顺序加锁，避免死锁
+        List<IdGeneratorEntity> rows = new ArrayList<>(latest.values());
+        rows.sort(Comparator.comparing(IdGeneratorEntity::getBizTag));
+
+        // 3. 写入持久化后端
+        idStore.write(rows);
     }
 }
@@ -0,0 +1,101 @@
+package io.github.vevoly.id.server.service;
+
+import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * <h3>最近申请结果缓存 (Recent Result Cache)</h3>
+ *
+ * <p>
+ * 以 {@code AppKey + Tag + 客户端 txId} 为 Key 缓存申请结果的 Future：
+ * 客户端超时重试时直接拿到首次申请的号段 (首次仍在引擎中时共享同一个 Future)，不再重复分配、不再重复写 WAL。
+ * 失败结果不缓存，重试会重新申请。容量固定，按插入顺序淘汰最旧的 Key。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Recent Result Cache.</b><br>
+ * Bounded FIFO of allocation futures keyed by app key, tag and client txId, so a retry
+ * gets the original range instead of a new one. Failed results are not kept.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Component
+public class RecentResultCache {
+
+    @Autowired
+    private IdServerProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${j-atomic-ledger.metrics-prefix:atomic-id-server}")
+    private String metricsPrefix;
+
+    private final Map<String, CompletableFuture<AllocResult>> results = new ConcurrentHashMap<>();
+
+    // 按插入顺序记录 Key 及其创建时的 Future，写满后覆盖最旧的并淘汰
+    private AtomicReferenceArray<Slot> ring;
+    private final AtomicLong cursor = new AtomicLong();
+
+    private Counter duplicates;
+
+    @PostConstruct
+    public void init() {
+        ring = new AtomicReferenceArray<>(Math.max(1, properties.getAlloc().getRecentResults()));
+        duplicates = Counter.builder(metricsPrefix + ".alloc.duplicate")
+                .description("Retried allocations answered from the recent result cache")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.getAlloc().getRecentResults() > 0;
+    }
+
+    /**
+     * 返回 Key 对应的申请结果，不存在时调用 loader 申请
+     */
+    public CompletableFuture<AllocResult> computeIfAbsent(String appKey, String tag, String txId,
+                                                          Supplier<CompletableFuture<AllocResult>> loader) {
+        String key = appKey + '\n' + tag + '\n' + txId;
+        CompletableFuture<AllocResult> promise = new CompletableFuture<>();
+        CompletableFuture<AllocResult> existing = results.putIfAbsent(key, promise);
+        if (existing != null) {
+            duplicates.increment();
+            return existing;
+        }
+        Slot evicted = ring.getAndSet((int) (cursor.getAndIncrement() % ring.length()), new Slot(key, promise));
+        if (evicted != null) {
+            // 只淘汰该槽位创建时的 Future：Key 失败后被重新申请时，新的 Future 属于更新的槽位
+            results.remove(evicted.key(), evicted.promise());
+        }
+        loader.get().whenComplete((result, e) -> {
+            if (e != null || result == null || !result.isSuccess()) {
+                results.remove(key, promise);
+            }
+            if (e != null) {
+                promise.completeExceptionally(e);
+            } else {
+                promise.complete(result);
+            }
+        });
+        return promise;
+    }
+
+    private record Slot(String key, CompletableFuture<AllocResult> promise) {
+    }
+}
@@ -0,0 +1,171 @@
+package io.github.vevoly.id.server.service;
+
+import io.github.vevoly.id.api.constants.IdConstants;
+import io.github.vevoly.id.api.domain.PushedSegment;
+import io.github.vevoly.id.api.exceptions.IdErrorCode;
+import io.github.vevoly.id.api.exceptions.IdException;
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.limit.AppRateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h3>号段推送服务 (Segment Push Service)</h3>
+ *
+ * <p>
+ * 客户端通过 SSE 订阅一组 Tag 及各自步长，订阅建立后每个 Tag 立即推送一个号段；
+ * 客户端开始消费某个推送号段时回传 ack，服务端随即为该 Tag 申请并推送下一个号段。
+ * 因此每个 Tag 始终只有一个号段在途，补给延迟不再出现在客户端的取号路径上。
+ * </p>
+ * <p>
+ * 推送申请与普通申请一样经过 {@link IdAllocService#alloc}，同一 Tag 的补给在引擎中与其他客户端的申请一起排队合并。
+ * 申请失败 (如 NOT_OWNER / NOT_LEADER) 时推送失败结果，客户端自行回退到主动拉取。
+ * 每次推送的步长计入订阅者 AppKey 的配额，超额时按建议的等待时间延后推送，而不是绕过准入控制。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Segment Push Service.</b><br>
+ * Server-sent event subscriptions: one segment per tag is pushed up front and the next one after each ack,
+ * so exactly one segment per tag is in flight and refills leave the client's request path.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+@Service
+public class SegmentPushService {
+
+    @Autowired
+    private IdAllocService allocService;
+
+    @Autowired
+    private IdServerProperties properties;
+
+    @Autowired
+    private AppRateLimiter rateLimiter;
+
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    // 超出配额的推送延后执行
+    private final ScheduledExecutorService delayed = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "j-atomic-id-push-delay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 建立订阅
+     *
+     * @param steps  Tag -> 步长
+     * @param appKey 订阅者的 AppKey (推送的 ID 计入其配额，鉴权关闭时可为 null)
+     * @return SSE 连接，首个事件为 {@code subscribed} (订阅 ID)，之后为 {@code segment}
+     */
+    public SseEmitter subscribe(Map<String, Integer> steps, String appKey) {
+        IdServerProperties.Push push = properties.getPush();
+        if (!push.isEnabled() || steps.isEmpty() || steps.size() > push.getMaxTags()) {
+            throw new IdException(IdErrorCode.INVALID_PARAMS.getCode(), IdErrorCode.INVALID_PARAMS.getMessage());
+        }
+        if (subscriptions.size() >= push.getMaxSubscriptions()) {
+            throw new IdException(IdErrorCode.SERVER_BUSY.getCode(), IdErrorCode.SERVER_BUSY.getMessage());
+        }
+
+        String id = UUID.randomUUID().toString();
+        SseEmitter emitter = new SseEmitter(push.getTimeout().toMillis());
+        Subscription subscription = new Subscription(id, emitter, Map.copyOf(steps), appKey, ConcurrentHashMap.newKeySet());
+        subscriptions.put(id, subscription);
+        emitter.onCompletion(() -> subscriptions.remove(id));
+        emitter.onTimeout(() -> subscriptions.remove(id));
+        emitter.onError(e -> subscriptions.remove(id));
+
+        if (send(subscription, SseEmitter.event().name(IdConstants.PUSH_EVENT_SUBSCRIBED).data(id))) {
+            steps.keySet().forEach(tag -> pushNext(subscription, tag));
+        }
+        log.debug("Subscription {} opened for {} tags", id, steps.size());
+        return emitter;
+    }
+
+    /**
+     * 客户端开始消费上一个推送号段，推送下一个
+     * <p>
+     * 每个 Tag 同时最多一个号段在途：只有已送达且未确认的号段才接受确认，
+     * 重复确认或推送尚未完成时的确认被忽略，不会多申请号段。
+     * </p>
+     *
+     * @return 订阅或 Tag 不存在时返回 false (客户端应重新订阅)
+     */
+    public boolean ack(String subscriptionId, String tag) {
+        Subscription subscription = subscriptions.get(subscriptionId);
+        if (subscription == null || !subscription.steps().containsKey(tag)) {
+            return false;
+        }
+        if (subscription.delivered().remove(tag)) {
+            pushNext(subscription, tag);
+        }
+        return true;
+    }
+
+    public int size() {
+        return subscriptions.size();
+    }
+
+    private void pushNext(Subscription subscription, String tag) {
+        int step = subscription.steps().get(tag);
+        long retryAfter = rateLimiter.tryAcquire(subscription.appKey(), step);
+        if (retryAfter > 0) {
+            // 超出配额：稍后重试 (订阅已关闭则放弃)
+            delayed.schedule(() -> {
+                if (subscriptions.containsKey(subscription.id())) {
+                    pushNext(subscription, tag);
+                }
+            }, retryAfter, TimeUnit.MILLISECONDS);
+            return;
+        }
+        allocService.alloc(tag, step).thenAccept(result -> {
+            if (!result.isSuccess()) {
+                log.debug("Push {} failed for subscription {}: {}", tag, subscription.id(), result.getMessage());
+            }
+            // 先标记已送达再发送，避免客户端在标记前确认而被忽略
+            subscription.delivered().add(tag);
+            send(subscription, SseEmitter.event()
+                    .name(IdConstants.PUSH_EVENT_SEGMENT)
+                    .data(new PushedSegment(tag, result), MediaType.APPLICATION_JSON));
+        });
+    }
+
+    /**
+     * 发送事件，连接已断开时移除订阅 (号段随之丢弃，号段模式允许空洞)
+     */
+    private boolean send(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        try {
+            // SseEmitter 不支持并发发送
+            synchronized (subscription) {
+                subscription.emitter().send(event);
+            }
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            subscriptions.remove(subscription.id());
+            subscription.emitter().completeWithError(e);
+            return false;
+        }
+    }
+
+    /**
+     * @param delivered 已送达、等待确认的 Tag
+     */
+    private record Subscription(String id, SseEmitter emitter, Map<String, Integer> steps, String appKey,
+                                Set<String> delivered) {
+    }
+}
@@ -0,0 +1,286 @@
+package io.github.vevoly.id.server.store;
+
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.domain.IdGeneratorEntity;
+import io.github.vevoly.id.server.domain.SequenceTable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * <h3>嵌入式文件持久化后端 (Embedded File Store)</h3>
+ *
+ * <p>
+ * 无需数据库的持久化实现，适用于边缘站点与压测。数据以只追加的方式写入单个文件，每条记录带校验和：
+ * </p>
+ * <pre>
+ * +--------+-----------+-------+----------+
+ * | tagLen | tag UTF-8 | maxId | crc32c   |
+ * | short  | bytes     | long  | int      |
+ * +--------+-----------+-------+----------+
+ * </pre>
+ * <p>
+ * 同一个 Tag 会出现多条记录，读取时取最大值。启动时校验全文件，截断掉崩溃时写了一半的尾部；
+ * 运行中追加失败 (磁盘满、IO 错误) 时立即截断回追加前的长度，后续记录不会写在残缺记录之后
+ * (否则重启时从残缺处截断会连带丢弃其后的有效记录，MaxId 回退)。
+ * 追加的记录数超过阈值后压缩 (每个 Tag 只保留一条，写入临时文件后原子替换)。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Embedded File Store.</b><br>
+ * Append-only, checksummed {@code (tag, maxId)} records in a single file, with torn-tail recovery on startup
+ * and threshold-based compaction. Lets the server run without an RDBMS.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "j-atomic-id.server.store", name = "type", havingValue = "file")
+public class FileIdStore implements IdStore {
+
+    // tagLen(2) + maxId(8) + crc(4)
+    private static final int RECORD_OVERHEAD = 2 + 8 + 4;
+
+    @Autowired
+    private IdServerProperties properties;
+
+    private Path path;
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final CRC32C crc = new CRC32C();
+
+    // 上次压缩后追加的记录数
+    private long appendedRecords;
+
+    // 已完整写入的文件长度 (追加失败时截断回该位置)
+    private long committedLength;
+
+    @PostConstruct
+    public synchronized void init() throws IOException {
+        path = Paths.get(properties.getStore().getFile().getPath()).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        // 校验并截断损坏的尾部
+        long validLength = scan(null);
+        if (Files.exists(path) && Files.size(path) > validLength) {
+            log.warn("[file-store] 文件 {} 尾部存在不完整记录，截断到 {} 字节", path, validLength);
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ch.truncate(validLength);
+            }
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        committedLength = channel.size();
+        log.info("[file-store] 使用文件持久化: {}", path);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    @Override
+    public synchronized void write(List<IdGeneratorEntity> rows) {
+        buffer.clear();
+        for (IdGeneratorEntity row : rows) {
+            byte[] tag = row.getBizTag().getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(RECORD_OVERHEAD + tag.length);
+            appendRecord(buffer, tag, row.getMaxId());
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (properties.getStore().getFile().isFsync()) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            rollback(e);
+            throw new UncheckedIOException("Failed to write " + path, e);
+        }
+        committedLength += buffer.limit();
+        appendedRecords += rows.size();
+        if (appendedRecords >= properties.getStore().getFile().getCompactThreshold()) {
+            // 本批已落盘，压缩失败不影响本次写入，下次写入时重试
+            try {
+                compact();
+            } catch (IOException e) {
+                log.error("[file-store] 压缩失败，保留原文件: {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * 追加失败：截断掉本批已写入的部分
+     */
+    private void rollback(IOException cause) {
+        try {
+            channel.truncate(committedLength);
+            channel.force(false);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            // 无法截断时关闭通道，之后的写入全部失败，而不是写在残缺记录之后 (重启时截断残缺尾部)
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 已在关闭
+            }
+            log.error("[file-store] 追加失败且无法截断 {}，停止写入", path, e);
+        }
+    }
+
+    @Override
+    public synchronized long load(SequenceTable table) {
+        try {
+            scan(table);
+            return table.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load " + path, e);
+        }
+    }
+
+    /**
+     * 压缩：每个 Tag 只保留最大值，写入临时文件后原子替换
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        SequenceTable latest = new SequenceTable();
+        scan(latest);
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.clear();
+            for (int i = 0; i < latest.size(); i++) {
+                byte[] tag = latest.keyAt(i).getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < RECORD_OVERHEAD + tag.length) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                    ensureCapacity(RECORD_OVERHEAD + tag.length);
+                }
+                appendRecord(buffer, tag, latest.valueAt(i));
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // 替换失败时原文件保持不变，重新打开后继续追加
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            committedLength = channel.size();
+        }
+        log.info("[file-store] 压缩完成: {} 条追加记录 -> {} 个 Tag，耗时 {} ms",
+                appendedRecords, latest.size(), (System.nanoTime() - start) / 1_000_000);
+        appendedRecords = 0;
+    }
+
+    /**
+     * 顺序读取文件，校验每条记录
+     *
+     * @param table 非空时把每个 Tag 的最大值写入其中
+     * @return 最后一条完整记录的结束位置
+     */
+    private long scan(SequenceTable table) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long valid = 0;
+        CRC32C check = new CRC32C();
+        try (InputStream raw = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 64 * 1024))) {
+            byte[] tag = new byte[256];
+            while (true) {
+                int tagLen;
+                long maxId;
+                int expected;
+                try {
+                    tagLen = in.readUnsignedShort();
+                    if (tag.length < tagLen) {
+                        tag = new byte[tagLen];
+                    }
+                    in.readFully(tag, 0, tagLen);
+                    maxId = in.readLong();
+                    expected = in.readInt();
+                } catch (EOFException e) {
+                    return valid;
+                }
+                check.reset();
+                check.update((byte) (tagLen >>> 8));
+                check.update((byte) tagLen);
+                check.update(tag, 0, tagLen);
+                updateLong(check, maxId);
+                if ((int) check.getValue() != expected) {
+                    return valid;
+                }
+                if (table != null) {
+                    String key = new String(tag, 0, tagLen, StandardCharsets.UTF_8);
+                    if (maxId > table.get(key, Long.MIN_VALUE)) {
+                        table.put(key, maxId);
+                    }
+                }
+                valid += RECORD_OVERHEAD + tagLen;
+            }
+        }
+    }
+
+    private void appendRecord(ByteBuffer buf, byte[] tag, long maxId) {
+        crc.reset();
+        crc.update((byte) (tag.length >>> 8));
+        crc.update((byte) tag.length);
+        crc.update(tag, 0, tag.length);
+        updateLong(crc, maxId);
+        buf.putShort((short) tag.length);
+        buf.put(tag);
+        buf.putLong(maxId);
+        buf.putInt((int) crc.getValue());
+    }
+
+    private static void updateLong(CRC32C checksum, long v) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            checksum.update((byte) (v >>> shift));
+        }
+    }
+
+    // 写缓冲不足时扩容 (已有内容会保留)
+    private void ensureCapacity(int required) {
+        if (buffer.remaining() >= required) {
+            return;
+        }
+        ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + required));
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.vevoly.id.server.store;
+
+import io.github.vevoly.id.server.domain.IdGeneratorEntity;
+import io.github.vevoly.id.server.domain.SequenceTable;
+
+import java.util.List;
+
+/**
+ * <h3>持久化后端 SPI (Persistence Backend SPI)</h3>
+ *
+ * <p>
+ * 负责两件事：异步落库 (由 {@link io.github.vevoly.id.server.service.IdSyncer} 调用)
+ * 和冷启动时加载初始状态 (由 {@link io.github.vevoly.id.server.service.IdBootstrap} 调用)。
+ * 通过 {@code j-atomic-id.server.store.type} 选择实现，内置 {@code mysql} 与 {@code file} 两种。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Persistence Backend SPI.</b><br>
+ * Writes persisted max ids and loads the initial state on cold start.
+ * Selected by {@code j-atomic-id.server.store.type}; {@code mysql} and {@code file} are built in.
+ * </span>
+ *
+ * @author vevoly
+ */
+public interface IdStore {
+
+    /**
+     * 写入一批记录
+     *
+     * @param rows 已按 Tag 合并 (每个 Tag 一行) 并按 biz_tag 升序排列
+     */
+    void write(List<IdGeneratorEntity> rows);
+
+    /**
+     * 加载所有 Tag 已持久化的最大 ID
+     *
+     * @param table 待填充的状态表 (只在当前线程写入)
+     * @return 加载的 Tag 数量
+     */
+    long load(SequenceTable table);
+}
@@ -0,0 +1,183 @@
+package io.github.vevoly.id.server.store;
+
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.domain.IdGeneratorEntity;
+import io.github.vevoly.id.server.domain.SequenceTable;
+import io.github.vevoly.id.server.mapper.IdGeneratorMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h3>MySQL 持久化后端 (MySQL Store)</h3>
+ *
+ * <p>默认实现，数据存放在 {@code t_id_generator} 表。</p>
+ *
+ * @author vevoly
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "j-atomic-id.server.store", name = "type", havingValue = "mysql", matchIfMissing = true)
+public class MysqlIdStore implements IdStore {
+
+    // 结束标记 (每个读取线程完成后放入一个)
+    private static final List<IdGeneratorEntity> END_OF_RANGE = Collections.emptyList();
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private IdGeneratorMapper idMapper;
+
+    @Autowired
+    private IdServerProperties properties;
+
+    /**
+     * 使用 JDBC Batch 执行同一条预编译语句，按固定大小分块提交
+     */
+    @Override
+    public void write(List<IdGeneratorEntity> rows) {
+        int batchSize = Math.max(1, properties.getPersist().getBatchSize());
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            IdGeneratorMapper mapper = session.getMapper(IdGeneratorMapper.class);
+            for (int i = 0; i < rows.size(); i++) {
+                mapper.upsert(rows.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    session.flushStatements();
+                }
+            }
+            session.flushStatements();
+            session.commit();
+        }
+    }
+
+    /**
+     * 按 biz_tag 做 Keyset 分页 (WHERE biz_tag > ? ORDER BY biz_tag LIMIT ?)，只查询 biz_tag / max_id 两列，
+     * 每页读到即装入内存，堆内最多同时存在 {@code 2 * parallelism} 页数据。
+     * 开启并行时先按偏移量把主键空间切成若干区间，由多个线程各自分页读取，当前线程统一写入状态表。
+     */
+    @Override
+    public long load(SequenceTable table) {
+        IdServerProperties.Bootstrap config = properties.getBootstrap();
+        int pageSize = Math.max(1, config.getPageSize());
+        int parallelism = Math.max(1, config.getParallelism());
+
+        // 1. 按偏移量切分主键区间: [boundaries[i], boundaries[i + 1])，null 表示无边界
+        List<String> boundaries = new ArrayList<>();
+        boundaries.add(null);
+        if (parallelism > 1) {
+            long total = idMapper.selectCount(null);
+            for (int i = 1; i < parallelism; i++) {
+                String tag = idMapper.selectTagAtOffset(total * i / parallelism);
+                if (tag != null && !tag.equals(boundaries.get(boundaries.size() - 1))) {
+                    boundaries.add(tag);
+                }
+            }
+        }
+        boundaries.add(null);
+        int ranges = boundaries.size() - 1;
+
+        // 2. 各区间并行分页读取，放入有界队列
+        BlockingQueue<List<IdGeneratorEntity>> pages = new ArrayBlockingQueue<>(2 * ranges);
+        ExecutorService readers = Executors.newFixedThreadPool(ranges, r -> {
+            Thread t = new Thread(r, "j-atomic-id-bootstrap");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<?>> futures = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            String lower = boundaries.get(i);
+            String upper = boundaries.get(i + 1);
+            futures.add(readers.submit(() -> {
+                readRange(lower, upper, pageSize, pages);
+                return null;
+            }));
+        }
+
+        // 3. 当前线程消费分页，将数据装入内存序列表
+        // 数据库的一行记录 -> 序列表的一个 Entry
+        long start = System.nanoTime();
+        long lastLog = start;
+        long loaded = 0;
+        int finished = 0;
+        try {
+            while (finished < ranges) {
+                List<IdGeneratorEntity> page = pages.poll(1, TimeUnit.SECONDS);
+                if (page == null) {
+                    checkReaders(futures);
+                    continue;
+                }
+                if (page == END_OF_RANGE) {
+                    finished++;
+                    continue;
+                }
+                for (IdGeneratorEntity entity : page) {
+                    // Key: bizTag, Value: maxId
+                    table.put(entity.getBizTag(), entity.getMaxId());
+                }
+                loaded += page.size();
+                long now = System.nanoTime();
+                if (now - lastLog > TimeUnit.SECONDS.toNanos(5)) {
+                    log.info("... 已加载 {} 个业务 Tag，速率 {} rows/s", loaded, loaded * TimeUnit.SECONDS.toNanos(1) / (now - start));
+                    lastLog = now;
+                }
+            }
+            checkReaders(futures);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bootstrap interrupted", e);
+        } finally {
+            readers.shutdownNow();
+        }
+        return loaded;
+    }
+
+    /**
+     * Keyset 分页读取一个区间 [lower, upper)
+     */
+    private void readRange(String lower, String upper, int pageSize, BlockingQueue<List<IdGeneratorEntity>> pages) throws InterruptedException {
+        String after = lower;
+        boolean first = true;
+        while (true) {
+            // 区间下界本身也属于该区间，因此首页使用 >=
+            List<IdGeneratorEntity> page = idMapper.selectPageAfter(after, first, upper, pageSize);
+            first = false;
+            if (!page.isEmpty()) {
+                pages.put(page);
+                after = page.get(page.size() - 1).getBizTag();
+            }
+            if (page.size() < pageSize) {
+                pages.put(END_OF_RANGE);
+                return;
+            }
+        }
+    }
+
+    // 任一读取线程失败时，立即中止启动
+    private void checkReaders(List<Future<?>> futures) throws InterruptedException {
+        for (Future<?> future : futures) {
+            if (future.isDone()) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Bootstrap failed while reading t_id_generator", e.getCause());
+                }
+            }
+        }
+    }
+}
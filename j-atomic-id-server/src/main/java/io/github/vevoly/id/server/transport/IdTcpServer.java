@@ -0,0 +1,315 @@
+package io.github.vevoly.id.server.transport;
+
+import io.github.vevoly.id.api.constants.IdConstants;
+import io.github.vevoly.id.api.domain.AllocResult;
+import io.github.vevoly.id.api.exceptions.IdErrorCode;
+import io.github.vevoly.id.api.protocol.IdProtocol;
+import io.github.vevoly.id.api.utils.SignatureUtils;
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.limit.AppRateLimiter;
+import io.github.vevoly.id.server.service.IdAllocService;
+import io.github.vevoly.id.server.utils.IpWhitelist;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h3>二进制 TCP 服务 (Binary TCP Server)</h3>
+ *
+ * <p>
+ * 在独立端口上提供 {@link IdProtocol} 协议，绕过 Spring MVC / Jackson，与 HTTP 共用同一个 {@link IdAllocService}。
+ * 每个连接一个读线程 + 一个写线程：读线程解析请求后直接提交引擎，写线程批量写回响应后统一 flush，
+ * 引擎线程只负责把结果放入队列，不会被网络 IO 阻塞。
+ * 每个连接最多 {@code maxPendingResponses} 个请求未写回：读线程先取得名额再处理请求，写线程写出后归还，
+ * 响应队列因此有界；名额用尽时读线程停止读取，由 TCP 流控反压客户端，持续超过 {@code slowClientTimeout} 则关闭连接。
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>Binary TCP Server.</b><br>
+ * Serves {@link IdProtocol} on a dedicated port, sharing {@link IdAllocService} with the HTTP API.
+ * Each connection has a reader and a writer thread, so pipelined responses are flushed in batches
+ * and engine threads never block on socket IO. Pending responses per connection are bounded; a client
+ * that stops reading is back-pressured and eventually disconnected.
+ * </span>
+ *
+ * @author vevoly
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "j-atomic-id.server.tcp", name = "enabled", havingValue = "true")
+public class IdTcpServer implements SmartLifecycle {
+
+    @Autowired
+    private IdAllocService allocService;
+
+    @Autowired
+    private IdServerProperties properties;
+
+    @Autowired
+    private AppRateLimiter rateLimiter;
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+    private ServerSocket serverSocket;
+    private IpWhitelist ipWhitelist;
+
+    @Override
+    public void start() {
+        int port = properties.getTcp().getPort();
+        ipWhitelist = IpWhitelist.compile(properties.getAuth().getIpWhitelist());
+        try {
+            serverSocket = new ServerSocket(port);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to bind TCP port " + port, e);
+        }
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "j-atomic-id-tcp-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info(">>> j-atomic-id TCP 服务已启动，端口: {}", port);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        log.info("<<< j-atomic-id TCP 服务已关闭");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                String ip = socket.getInetAddress().getHostAddress();
+                if (!ipWhitelist.allows(ip)) {
+                    log.warn("[tcp] reject connection from {}: {}", ip, IdErrorCode.IP_NOT_ALLOWED.getMessage());
+                    socket.close();
+                    continue;
+                }
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                connection.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.error("[tcp] accept failed", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个客户端连接
+     */
+    private class Connection {
+
+        private final Socket socket;
+        private final int maxPending = Math.max(1, properties.getTcp().getMaxPendingResponses());
+        // 每个请求先取得一个名额，响应写出后归还，队列不会超过 maxPending
+        private final Semaphore pending = new Semaphore(maxPending);
+        private final BlockingQueue<Response> responses = new ArrayBlockingQueue<>(maxPending);
+        private volatile boolean open = true;
+
+        // 鉴权关闭时无需 AUTH 帧
+        private boolean authenticated = !properties.getAuth().isEnabled();
+
+        // 鉴权通过的 AppKey (用于限流)
+        private String appKey;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        void start() {
+            String name = "j-atomic-id-tcp-" + socket.getRemoteSocketAddress();
+            Thread reader = new Thread(this::readLoop, name + "-reader");
+            reader.setDaemon(true);
+            reader.start();
+            Thread writer = new Thread(this::writeLoop, name + "-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        private void readLoop() {
+            IdProtocol.Frame frame = new IdProtocol.Frame();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+                long slowClientMillis = properties.getTcp().getSlowClientTimeout().toMillis();
+                while (open) {
+                    IdProtocol.readFrame(in, frame);
+                    // 背压：未写回的响应达到上限时停止读取，客户端长时间不读取响应则断开
+                    if (!pending.tryAcquire(slowClientMillis, TimeUnit.MILLISECONDS)) {
+                        log.warn("[tcp] close slow client {}: {} responses not read for {} ms",
+                                socket.getRemoteSocketAddress(), maxPending, slowClientMillis);
+                        break;
+                    }
+                    long requestId = frame.requestId;
+                    switch (frame.type) {
+                        case IdProtocol.TYPE_AUTH -> respond(requestId, authenticate(frame));
+                        case IdProtocol.TYPE_ALLOC -> {
+                            if (!authenticated) {
+                                respond(requestId, fail(IdErrorCode.MISSING_AUTH_HEADER));
+                                continue;
+                            }
+                            if (!allocService.isValidCount(frame.count) || !IdAllocService.isValidTxId(frame.txId)) {
+                                respond(requestId, fail(IdErrorCode.INVALID_PARAMS));
+                                continue;
+                            }
+                            long retryAfter = rateLimiter.tryAcquire(appKey, frame.count);
+                            if (retryAfter > 0) {
+                                // message 为建议的重试等待毫秒数
+                                respond(requestId, AllocResult.fail(IdErrorCode.RATE_LIMITED.getCode(), String.valueOf(retryAfter)));
+                                continue;
+                            }
+                            // 携带 txId 时与 HTTP 一样经过最近结果缓存，重试拿到首次的号段
+                            // 异常完成也要写回响应，否则名额不会归还
+                            allocService.alloc(frame.bizTag, frame.count, appKey, frame.txId, 0)
+                                    .whenComplete((result, e) -> respond(requestId, e == null ? result : fail(IdErrorCode.SERVER_BUSY)));
+                        }
+                        case IdProtocol.TYPE_LEASE -> {
+                            if (!authenticated) {
+                                respond(requestId, fail(IdErrorCode.MISSING_AUTH_HEADER));
+                                continue;
+                            }
+                            // 校验与 HTTP /id/worker/lease 一致
+                            if (!IdAllocService.isValidTag(frame.bizTag) || frame.ttlMillis <= 0
+                                    || frame.maxWorkers <= 0 || frame.maxWorkers > IdConstants.MAX_WORKERS) {
+                                respond(requestId, fail(IdErrorCode.INVALID_PARAMS));
+                                continue;
+                            }
+                            // 与 HTTP 一样只计请求次数，不计 ID 数
+                            long retryAfter = rateLimiter.tryAcquire(appKey, 0);
+                            if (retryAfter > 0) {
+                                respond(requestId, AllocResult.fail(IdErrorCode.RATE_LIMITED.getCode(), String.valueOf(retryAfter)));
+                                continue;
+                            }
+                            allocService.leaseWorker(frame.bizTag, frame.workerId, frame.leaseToken, frame.ttlMillis, frame.maxWorkers)
+                                    .whenComplete((result, e) -> respond(requestId, e == null ? result : fail(IdErrorCode.SERVER_BUSY)));
+                        }
+                        default -> respond(requestId, fail(IdErrorCode.INVALID_PARAMS));
+                    }
+                }
+            } catch (EOFException | SocketException e) {
+                // 客户端关闭连接
+            } catch (IOException e) {
+                log.warn("[tcp] connection {} broken: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        private void writeLoop() {
+            List<Response> batch = new ArrayList<>();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                while (open) {
+                    Response first = responses.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    // 一次取出所有待写响应，合并 flush
+                    batch.add(first);
+                    responses.drainTo(batch);
+                    for (Response response : batch) {
+                        IdProtocol.writeResult(out, response.requestId(), response.result());
+                    }
+                    out.flush();
+                    pending.release(batch.size());
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                if (open) {
+                    log.warn("[tcp] write to {} failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+                }
+            } finally {
+                close();
+            }
+        }
+
+        private AllocResult authenticate(IdProtocol.Frame frame) {
+            if (!properties.getAuth().isEnabled()) {
+                return AllocResult.success(0, 0);
+            }
+            // 时间戳校验 (与 HTTP 一致，只允许5分钟内的请求)
+            if (Math.abs(System.currentTimeMillis() - frame.timestamp) > TimeUnit.MINUTES.toMillis(5)) {
+                return fail(IdErrorCode.TIMESTAMP_EXPIRED);
+            }
+            String secret = properties.getAuth().getClients().get(frame.appKey);
+            if (secret == null) {
+                return fail(IdErrorCode.INVALID_PARAMS);
+            }
+            Map<String, String> params = Map.of(
+                    "appKey", frame.appKey,
+                    "timestamp", String.valueOf(frame.timestamp));
+            if (!SignatureUtils.verify(frame.signature, secret, params)) {
+                return fail(IdErrorCode.SIGNATURE_INVALID);
+            }
+            authenticated = true;
+            appKey = frame.appKey;
+            return AllocResult.success(0, 0);
+        }
+
+        /**
+         * 放入响应队列 (请求已持有名额，队列不会满)
+         */
+        private void respond(long requestId, AllocResult result) {
+            if (open) {
+                responses.offer(new Response(requestId, result));
+            }
+        }
+
+        void close() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            connections.remove(this);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static AllocResult fail(IdErrorCode errorCode) {
+        return AllocResult.fail(errorCode.getCode(), errorCode.getMessage());
+    }
+
+    private record Response(long requestId, AllocResult result) {}
+}
@@ -0,0 +1,179 @@
+package io.github.vevoly.id.server.utils;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的 IP 白名单
+ * <p>
+ * 启动时把配置解析为网段 (支持单个 IP 与 CIDR，如 {@code 10.0.0.0/8}、{@code fd00::/8})，
+ * 请求时 IPv4 地址直接按整数掩码比较，不做字符串切分，也不产生临时对象。
+ * </p>
+ */
+public final class IpWhitelist {
+
+    private static final IpWhitelist ALLOW_ALL = new IpWhitelist(new int[0], new int[0], new byte[0][], new int[0]);
+
+    private final int[] v4Networks;
+    private final int[] v4Masks;
+    private final byte[][] v6Networks;
+    private final int[] v6Prefixes;
+
+    private IpWhitelist(int[] v4Networks, int[] v4Masks, byte[][] v6Networks, int[] v6Prefixes) {
+        this.v4Networks = v4Networks;
+        this.v4Masks = v4Masks;
+        this.v6Networks = v6Networks;
+        this.v6Prefixes = v6Prefixes;
+    }
+
+    /**
+     * 编译白名单配置，为空时放行所有地址
+     */
+    public static IpWhitelist compile(List<String> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return ALLOW_ALL;
+        }
+        List<int[]> v4 = new ArrayList<>();
+        List<byte[]> v6 = new ArrayList<>();
+        List<Integer> v6Prefix = new ArrayList<>();
+        for (String raw : entries) {
+            String entry = raw.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int slash = entry.indexOf('/');
+            String host = slash < 0 ? entry : entry.substring(0, slash);
+            int ipv4 = parseIpv4(host, 0, host.length());
+            if (ipv4 != -1 || "255.255.255.255".equals(host)) {
+                int prefix = slash < 0 ? 32 : parsePrefix(entry, slash, 32);
+                int mask = prefix == 0 ? 0 : -1 << (32 - prefix);
+                v4.add(new int[]{ipv4 & mask, mask});
+            } else {
+                byte[] address = parseLiteral(host, entry);
+                int prefix = slash < 0 ? address.length * 8 : parsePrefix(entry, slash, address.length * 8);
+                v6.add(address);
+                v6Prefix.add(prefix);
+            }
+        }
+        int[] networks = new int[v4.size()];
+        int[] masks = new int[v4.size()];
+        for (int i = 0; i < v4.size(); i++) {
+            networks[i] = v4.get(i)[0];
+            masks[i] = v4.get(i)[1];
+        }
+        int[] prefixes = v6Prefix.stream().mapToInt(Integer::intValue).toArray();
+        return new IpWhitelist(networks, masks, v6.toArray(new byte[0][]), prefixes);
+    }
+
+    public boolean isAllowAll() {
+        return v4Networks.length == 0 && v6Networks.length == 0;
+    }
+
+    /**
+     * 判断 IP 是否在白名单内
+     */
+    public boolean allows(String ip) {
+        if (isAllowAll()) {
+            return true; // 没配白名单，默认放行
+        }
+        if (ip == null || ip.isEmpty()) {
+            return false;
+        }
+        int ipv4 = parseIpv4(ip, 0, ip.length());
+        if (ipv4 != -1 || "255.255.255.255".equals(ip)) {
+            for (int i = 0; i < v4Networks.length; i++) {
+                if ((ipv4 & v4Masks[i]) == v4Networks[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (v6Networks.length == 0 || ip.indexOf(':') < 0) {
+            return false;
+        }
+        byte[] address;
+        try {
+            // 仅处理 IPv6 字面量，不会触发 DNS 查询
+            address = InetAddress.getByName(ip).getAddress();
+        } catch (Exception e) {
+            return false;
+        }
+        for (int i = 0; i < v6Networks.length; i++) {
+            if (matches(address, v6Networks[i], v6Prefixes[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(byte[] address, byte[] network, int prefix) {
+        if (address.length != network.length) {
+            return false;
+        }
+        int fullBytes = prefix >>> 3;
+        for (int i = 0; i < fullBytes; i++) {
+            if (address[i] != network[i]) {
+                return false;
+            }
+        }
+        int remainBits = prefix & 7;
+        if (remainBits == 0) {
+            return true;
+        }
+        int mask = (0xFF << (8 - remainBits)) & 0xFF;
+        return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+    }
+
+    /**
+     * 解析点分十进制 IPv4，失败返回 -1 (255.255.255.255 由调用方单独判断)
+     */
+    private static int parseIpv4(String s, int from, int to) {
+        int result = 0;
+        int octets = 0;
+        int value = -1;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && value >= 0 && octets < 3) {
+                result = (result << 8) | value;
+                octets++;
+                value = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (octets != 3 || value < 0) {
+            return -1;
+        }
+        return (result << 8) | value;
+    }
+
+    private static int parsePrefix(String entry, int slash, int max) {
+        int prefix;
+        try {
+            prefix = Integer.parseInt(entry.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid ip whitelist entry: " + entry, e);
+        }
+        if (prefix < 0 || prefix > max) {
+            throw new IllegalArgumentException("Invalid ip whitelist entry: " + entry);
+        }
+        return prefix;
+    }
+
+    private static byte[] parseLiteral(String host, String entry) {
+        if (host.indexOf(':') < 0) {
+            throw new IllegalArgumentException("Invalid ip whitelist entry: " + entry);
+        }
+        try {
+            return InetAddress.getByName(host).getAddress();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid ip whitelist entry: " + entry, e);
+        }
+    }
+}
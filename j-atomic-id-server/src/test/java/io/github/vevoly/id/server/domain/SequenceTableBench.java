@@ -0,0 +1,184 @@
+package io.github.vevoly.id.server.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * <h3>SequenceTable 基准 (SequenceTable Benchmark)</h3>
+ *
+ * <p>
+ * 对比引擎 Tag -> MaxId 表的两种实现：{@code HashMap<String, Long>} (getOrDefault + put) 与 {@link SequenceTable} (getAndAdd)。
+ * 每条命令使用新的 String 实例 (模拟反序列化出的 bizTag)，输出吞吐中位数与建表后的堆增量。
+ * 由 {@code scripts/bench-sequence-table.sh} 调用，不属于单元测试。
+ * </p>
+ *
+ * <p>
+ * 参数 (System Property)：
+ * <ul>
+ *     <li>{@code tags}: Tag 数量，空格分隔，默认 "100 10000 1000000"</li>
+ *     <li>{@code order}: 访问顺序，round-robin (按插入顺序轮询) / random (均匀随机)，默认两者都跑</li>
+ *     <li>{@code keys}: Tag 命名，sequential (order_tag_0, order_tag_1 ...) / random (随机字符串)，默认两者都跑</li>
+ *     <li>{@code ops}: 每轮命令数，默认 4000000；{@code rounds}: 轮数 (首轮预热不计入)，默认 8</li>
+ * </ul>
+ * </p>
+ *
+ * <hr>
+ * <span style="color: gray; font-size: 0.9em;">
+ * <b>SequenceTable Benchmark.</b><br>
+ * Compares {@code HashMap<String, Long>} with {@link SequenceTable} for the engine's tag table: median throughput
+ * per access order and key naming, plus retained heap per tag. Run via {@code scripts/bench-sequence-table.sh}.
+ * </span>
+ *
+ * @author vevoly
+ */
+public class SequenceTableBench {
+
+    private static final long DELTA = 1000;
+
+    private static Object retained;
+
+    public static void main(String[] args) {
+        String[] tagCounts = System.getProperty("tags", "100 10000 1000000").trim().split("\\s+");
+        String[] orders = System.getProperty("order", "round-robin random").trim().split("\\s+");
+        String[] namings = System.getProperty("keys", "sequential random").trim().split("\\s+");
+        int ops = Integer.getInteger("ops", 4_000_000);
+        int rounds = Math.max(2, Integer.getInteger("rounds", 8));
+
+        System.out.printf("cpus=%d ops=%d rounds=%d java=%s%n",
+                Runtime.getRuntime().availableProcessors(), ops, rounds, System.getProperty("java.version"));
+        System.out.printf("%-10s %-11s %8s %14s %14s%n", "keys", "order", "tags", "hashmap ops/s", "table ops/s");
+        for (String naming : namings) {
+            for (String order : orders) {
+                for (String count : tagCounts) {
+                    String[] keys = keys(naming, Integer.parseInt(count));
+                    double map = median(keys, order, ops, rounds, false);
+                    double table = median(keys, order, ops, rounds, true);
+                    System.out.printf("%-10s %-11s %8s %,14.0f %,14.0f%n", naming, order, count, map, table);
+                }
+            }
+        }
+        for (String count : tagCounts) {
+            String[] keys = keys("sequential", Integer.parseInt(count));
+            System.out.printf("heap tags=%s hashmap=%.1f B/tag table=%.1f B/tag%n",
+                    count, bytesPerTag(keys, false), bytesPerTag(keys, true));
+        }
+    }
+
+    private static String[] keys(String naming, int tags) {
+        String[] keys = new String[tags];
+        Random random = new Random(tags);
+        for (int i = 0; i < tags; i++) {
+            if ("sequential".equals(naming)) {
+                keys[i] = "order_tag_" + i;
+            } else if ("random".equals(naming)) {
+                // 与 sequential 长度相近的随机 Tag，hashCode 不随插入顺序递增
+                StringBuilder key = new StringBuilder("order_");
+                for (int j = 0; j < 10; j++) {
+                    key.append((char) ('a' + random.nextInt(26)));
+                }
+                keys[i] = key.append('_').append(i).toString();
+            } else {
+                throw new IllegalArgumentException("Unknown keys: " + naming);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 先建好全部 Tag，再跑 rounds 轮 (首轮预热)，返回其余轮吞吐的中位数
+     */
+    private static double median(String[] base, String order, int ops, int rounds, boolean useTable) {
+        Map<String, Long> map = new HashMap<>();
+        SequenceTable table = new SequenceTable();
+        for (String key : base) {
+            if (useTable) {
+                table.put(key, 0L);
+            } else {
+                map.put(key, 0L);
+            }
+        }
+        List<Double> results = new ArrayList<>();
+        long sink = 0;
+        for (int round = 0; round < rounds; round++) {
+            String[] keys = commands(base, order, ops, round);
+            long start = System.nanoTime();
+            sink += useTable ? runTable(table, keys) : runMap(map, keys);
+            long nanos = System.nanoTime() - start;
+            if (round > 0) {
+                results.add(ops * 1e9 / nanos);
+            }
+        }
+        retained = sink;
+        Collections.sort(results);
+        return results.get(results.size() / 2);
+    }
+
+    private static String[] commands(String[] base, String order, int ops, int round) {
+        String[] keys = new String[ops];
+        Random random = new Random(round);
+        boolean roundRobin = "round-robin".equals(order);
+        if (!roundRobin && !"random".equals(order)) {
+            throw new IllegalArgumentException("Unknown order: " + order);
+        }
+        for (int i = 0; i < ops; i++) {
+            String key = base[roundRobin ? i % base.length : random.nextInt(base.length)];
+            keys[i] = new String(key.toCharArray());
+        }
+        return keys;
+    }
+
+    private static long runMap(Map<String, Long> map, String[] keys) {
+        long sink = 0;
+        for (String key : keys) {
+            long current = map.getOrDefault(key, 0L);
+            map.put(key, current + DELTA);
+            sink += current;
+        }
+        return sink;
+    }
+
+    private static long runTable(SequenceTable table, String[] keys) {
+        long sink = 0;
+        for (String key : keys) {
+            sink += table.getAndAdd(key, DELTA);
+        }
+        return sink;
+    }
+
+    private static double bytesPerTag(String[] keys, boolean useTable) {
+        long before = usedHeap();
+        if (useTable) {
+            SequenceTable table = new SequenceTable();
+            for (int i = 0; i < keys.length; i++) {
+                table.put(new String(keys[i].toCharArray()), i);
+            }
+            retained = table;
+        } else {
+            Map<String, Long> map = new HashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                map.put(new String(keys[i].toCharArray()), (long) i + 1_000_000L);
+            }
+            retained = map;
+        }
+        long after = usedHeap();
+        retained = null;
+        return (after - before) / (double) keys.length;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
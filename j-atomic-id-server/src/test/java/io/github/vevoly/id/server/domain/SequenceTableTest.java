@@ -0,0 +1,233 @@
+package io.github.vevoly.id.server.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 序列表：扩容、哈希冲突、非 ASCII Key 与 V1/V2 快照加载
+ */
+class SequenceTableTest {
+
+    @Test
+    void growsPastInitialCapacityAndMatchesHashMap() {
+        SequenceTable table = new SequenceTable();
+        Map<String, Long> expected = new LinkedHashMap<>();
+        Random random = new Random(1);
+        // 多次扩容 (records / index / arena)，混合插入、覆盖与累加
+        for (int i = 0; i < 100_000; i++) {
+            String key = "tag-" + random.nextInt(50_000);
+            if (random.nextBoolean()) {
+                long old = table.getAndAdd(key, 7);
+                assertEquals(expected.getOrDefault(key, 0L), old);
+                expected.merge(key, 7L, Long::sum);
+            } else {
+                table.put(key, i);
+                expected.put(key, (long) i);
+            }
+        }
+        assertContents(expected, table);
+        assertOrder(table, new ArrayList<>(expected.keySet()));
+        assertEquals(-1L, table.get("tag-absent", -1L));
+    }
+
+    @Test
+    void resolvesCollidingKeysAcrossResize() {
+        List<String> colliding = colliding(10);
+        SequenceTable table = new SequenceTable();
+        Map<String, Long> expected = new LinkedHashMap<>();
+        for (int i = 0; i < colliding.size(); i++) {
+            table.put(colliding.get(i), i);
+            expected.put(colliding.get(i), (long) i);
+        }
+        for (String key : colliding) {
+            table.getAndAdd(key, 1000);
+            expected.merge(key, 1000L, Long::sum);
+        }
+        assertContents(expected, table);
+        // hashCode 相同但不存在的 Key，以及长度不同的前缀 Key
+        assertEquals(-1L, table.get("AaAaAaAaAaAaAaAaAaAaAa", -1L));
+        assertEquals(-1L, table.get("AaAaAaAaAa", -1L));
+    }
+
+    @Test
+    void handlesNonAsciiKeys() throws IOException, ClassNotFoundException {
+        SequenceTable table = new SequenceTable();
+        Map<String, Long> expected = new LinkedHashMap<>();
+        // 非 ASCII 字符在 ASCII 前缀之后出现，UTF-8 字节数大于字符数
+        for (String key : List.of("订单", "order-订单", "order-é", "order-e", "emoji-😀", "order-")) {
+            table.put(key, key.length());
+            expected.put(key, (long) key.length());
+        }
+        assertEquals(0L, table.getAndAdd("订单2", 5));
+        expected.put("订单2", 5L);
+        assertEquals(-1L, table.get("order-ée", -1L));
+        assertContents(expected, table);
+        assertOrder(table, new ArrayList<>(expected.keySet()));
+
+        SequenceTable loaded = roundTrip(table);
+        assertContents(expected, loaded);
+        assertOrder(loaded, List.of("emoji-😀", "order-", "order-e", "order-é", "order-订单", "订单", "订单2"));
+    }
+
+    @Test
+    void v2SnapshotRoundTripsAndAcceptsLaterInserts() throws IOException, ClassNotFoundException {
+        SequenceTable table = new SequenceTable();
+        Map<String, Long> expected = new LinkedHashMap<>();
+        Random random = new Random(2);
+        for (int i = 0; i < 20_000; i++) {
+            // 共享前缀、互为前缀的 Key，以及需要 10 字节 varint 的值
+            String key = "biz_" + (i % 7) + "_" + Integer.toString(i, 36) + (i % 5 == 0 ? "_x" : "");
+            long value = i % 3 == 0 ? random.nextLong() : i;
+            table.put(key, value);
+            expected.put(key, value);
+        }
+        table.put("biz_1", Long.MIN_VALUE);
+        expected.put("biz_1", Long.MIN_VALUE);
+        for (String key : colliding(6)) {
+            table.put(key, 42L);
+            expected.put(key, 42L);
+        }
+
+        SequenceTable loaded = roundTrip(table);
+        assertEquals(expected.size(), loaded.size());
+        for (Map.Entry<String, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), loaded.get(entry.getKey(), -1L), entry.getKey());
+        }
+        loaded.put("after-load", 1L);
+        assertEquals(1L, loaded.get("after-load", 0L));
+        assertEquals(42L, loaded.getAndAdd(colliding(6).get(3), 1));
+        assertEquals(0L, roundTrip(new SequenceTable()).size());
+    }
+
+    @Test
+    void loadsV1Snapshot() throws IOException, ClassNotFoundException {
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("order", 1_000_000L);
+        expected.put("user", 7L);
+        expected.put("订单", -3L);
+        for (String key : colliding(4)) {
+            expected.put(key, (long) key.hashCode());
+        }
+
+        SequenceTable loaded = deserialize(v1Snapshot(expected));
+        assertContents(expected, loaded);
+        assertOrder(loaded, new ArrayList<>(expected.keySet()));
+        loaded.put("order", 2_000_000L);
+        loaded.put("after-load", 1L);
+        assertEquals(2_000_000L, loaded.get("order", 0L));
+        assertEquals(1L, loaded.get("after-load", 0L));
+    }
+
+    /**
+     * 由 "Aa" 与 "BB" (hashCode 相同) 拼接出的 2^n 个 Key，哈希全部冲突
+     */
+    private static List<String> colliding(int n) {
+        List<String> keys = new ArrayList<>();
+        for (int bits = 0; bits < 1 << n; bits++) {
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                key.append((bits >>> i & 1) == 0 ? "Aa" : "BB");
+            }
+            keys.add(key.toString());
+        }
+        return keys;
+    }
+
+    private static void assertContents(Map<String, Long> expected, SequenceTable table) {
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<String, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey(), -1L), entry.getKey());
+        }
+        List<String> keys = new ArrayList<>();
+        table.forEach((key, value) -> keys.add(key));
+        assertEquals(expected.keySet(), new HashSet<>(keys));
+    }
+
+    /**
+     * 遍历按插入顺序 (V2 快照加载后为 Key 的字节序)
+     */
+    private static void assertOrder(SequenceTable table, List<String> expected) {
+        List<String> keys = new ArrayList<>();
+        table.forEach((key, value) -> keys.add(key));
+        assertEquals(expected, keys);
+    }
+
+    private static SequenceTable roundTrip(SequenceTable table) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(table);
+        }
+        return deserialize(bytes.toByteArray());
+    }
+
+    private static SequenceTable deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (SequenceTable) in.readObject();
+        }
+    }
+
+    /**
+     * 按 V1 格式构造快照：取空表序列化结果的类描述部分，把其中的 V2 数据块替换为 V1 数据块
+     * <pre>
+     * byte FORMAT_V1 | int size | int keyBytes | keys[keyBytes] | entries[size]
+     * entry = int keyEnd | int hash | long value
+     * </pre>
+     */
+    private static byte[] v1Snapshot(Map<String, Long> entries) throws IOException {
+        ByteArrayOutputStream keys = new ByteArrayOutputStream();
+        ByteArrayOutputStream tail = new ByteArrayOutputStream();
+        DataOutputStream entryOut = new DataOutputStream(tail);
+        for (Map.Entry<String, Long> entry : entries.entrySet()) {
+            keys.write(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            entryOut.writeInt(keys.size());
+            // V1 落盘的哈希与当前实现相同
+            int h = entry.getKey().hashCode() * 0x9E3779B9;
+            entryOut.writeInt(h ^ (h >>> 16));
+            entryOut.writeLong(entry.getValue());
+        }
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(data);
+        dataOut.writeByte(1);
+        dataOut.writeInt(entries.size());
+        dataOut.writeInt(keys.size());
+        keys.writeTo(dataOut);
+        tail.writeTo(dataOut);
+
+        // 空表 V2 数据块: TC_BLOCKDATA 9 | 2 | int 0 | int 0 | TC_ENDBLOCKDATA
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(empty)) {
+            out.writeObject(new SequenceTable());
+        }
+        byte[] prefix = empty.toByteArray();
+        byte[] emptyBlock = {0x77, 9, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0x78};
+        int cut = prefix.length - emptyBlock.length;
+        assertArrayEquals(emptyBlock, Arrays.copyOfRange(prefix, cut, prefix.length));
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        DataOutputStream streamOut = new DataOutputStream(stream);
+        streamOut.write(prefix, 0, cut);
+        // TC_BLOCKDATALONG | int length | data | TC_ENDBLOCKDATA
+        streamOut.writeByte(0x7A);
+        streamOut.writeInt(data.size());
+        data.writeTo(streamOut);
+        streamOut.writeByte(0x78);
+        return stream.toByteArray();
+    }
+}
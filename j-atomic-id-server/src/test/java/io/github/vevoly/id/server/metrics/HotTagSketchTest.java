@@ -0,0 +1,121 @@
+package io.github.vevoly.id.server.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 热点统计：Space-Saving 的计数守恒与高频 Tag 不丢失 (含大量冷 Tag 与哈希冲突的 Tag)
+ */
+class HotTagSketchTest {
+
+    private static final long WINDOW = 1000;
+
+    @Test
+    void keepsHeavyHittersAmongManyColdTags() {
+        HotTagSketch sketch = new HotTagSketch(64, WINDOW, 1);
+        long start = windowStart(sketch);
+        Random random = new Random(42);
+        Map<String, Long> exact = new HashMap<>();
+        long total = 0;
+        for (int i = 0; i < 200_000; i++) {
+            // 约 1/4 的流量落在 4 个热点 Tag 上，其余分散在 10 万个冷 Tag 上
+            String tag = random.nextInt(4) == 0 ? "hot-" + random.nextInt(4) : "cold-" + random.nextInt(100_000);
+            long amount = 1 + random.nextInt(3);
+            sketch.record(tag, amount, start);
+            exact.merge(tag, amount, Long::sum);
+            total += amount;
+        }
+        Map<String, Long> estimated = rollover(sketch, start);
+
+        // Space-Saving: 替换时新条目继承被替换条目的计数，计数总和等于总流量
+        assertEquals(total, estimated.values().stream().mapToLong(Long::longValue).sum());
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            if (entry.getValue() > total / 64) {
+                Long estimate = estimated.get(entry.getKey());
+                assertTrue(estimate != null && estimate >= entry.getValue(), "heavy hitter lost: " + entry.getKey());
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(estimated.containsKey("hot-" + i));
+        }
+    }
+
+    @Test
+    void tracksCollidingTagsAndKeepsOrderAfterDecay() {
+        // "Aa" 与 "BB" 的 hashCode 相同，拼接出的 Tag 全部冲突
+        List<String> colliding = new ArrayList<>();
+        for (int bits = 0; bits < 64; bits++) {
+            StringBuilder tag = new StringBuilder();
+            for (int i = 0; i < 6; i++) {
+                tag.append((bits >>> i & 1) == 0 ? "Aa" : "BB");
+            }
+            colliding.add(tag.toString());
+        }
+        HotTagSketch sketch = new HotTagSketch(8, WINDOW, 1);
+        long start = windowStart(sketch);
+        for (int round = 0; round < 50; round++) {
+            for (String tag : colliding) {
+                sketch.record(tag, 1, start);
+            }
+            sketch.record(colliding.get(5), 100, start);
+        }
+        Map<String, Long> estimated = rollover(sketch, start);
+        assertEquals(8, estimated.size());
+        assertTrue(estimated.get(colliding.get(5)) >= 50 * 101);
+
+        // 衰减之后新的热点仍会进入并保留
+        long next = start + WINDOW;
+        for (int round = 0; round < 200; round++) {
+            for (String tag : colliding) {
+                sketch.record(tag, 1, next);
+            }
+            sketch.record(colliding.get(40), 100, next);
+        }
+        Map<String, Long> later = rollover(sketch, next);
+        assertTrue(later.containsKey(colliding.get(40)));
+        assertTrue(later.get(colliding.get(40)) > later.getOrDefault(colliding.get(5), 0L));
+    }
+
+    @Test
+    void sampledReplacementStillFindsHeavyHitters() {
+        HotTagSketch sketch = new HotTagSketch(64, WINDOW, 16);
+        long start = windowStart(sketch);
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            String tag = random.nextInt(4) == 0 ? "hot-" + random.nextInt(4) : "cold-" + random.nextInt(100_000);
+            sketch.record(tag, 1, start);
+        }
+        Map<String, Long> estimated = rollover(sketch, start);
+        for (int i = 0; i < 4; i++) {
+            // 每个热点约占 1/16 的流量 (12500 次)，采样只会推迟其进入跟踪的时间
+            Long estimate = estimated.get("hot-" + i);
+            assertTrue(estimate != null && estimate >= 10_000, "hot-" + i + " estimated " + estimate);
+        }
+    }
+
+    private static long windowStart(HotTagSketch sketch) {
+        return (long) ReflectionTestUtils.getField(sketch, "windowStart");
+    }
+
+    /**
+     * 恰好一个窗口后触发衰减，按快照中的速率反推窗口内的计数 (速率 = 计数 / 2 / 窗口秒数)
+     */
+    private static Map<String, Long> rollover(HotTagSketch sketch, long windowStart) {
+        long now = windowStart + WINDOW;
+        sketch.record("__rollover__", 0, now);
+        Map<String, Long> estimated = new HashMap<>();
+        for (HotTagSketch.Entry entry : sketch.snapshot(now)) {
+            estimated.put(entry.bizTag(), Math.round(entry.rate() * 2 * WINDOW / 1000.0));
+        }
+        return estimated;
+    }
+}
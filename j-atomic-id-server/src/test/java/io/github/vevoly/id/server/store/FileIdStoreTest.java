@@ -0,0 +1,220 @@
+package io.github.vevoly.id.server.store;
+
+import io.github.vevoly.id.server.config.IdServerProperties;
+import io.github.vevoly.id.server.domain.IdGeneratorEntity;
+import io.github.vevoly.id.server.domain.SequenceTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 文件持久化：损坏尾部的恢复与追加失败后的截断
+ */
+class FileIdStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void truncatesTornTailOnStartupAndKeepsLaterAppends() throws IOException {
+        Path file = dir.resolve("id-store.log");
+        FileIdStore store = open(file, 1_000_000);
+        store.write(List.of(row("order", 100), row("user", 7)));
+        store.close();
+
+        // 模拟崩溃：尾部只写了半条记录
+        Files.write(file, new byte[]{0, 5, 'o', 'r'}, StandardOpenOption.APPEND);
+
+        store = open(file, 1_000_000);
+        assertMaxIds(store, "order", 100, "user", 7);
+        store.write(List.of(row("order", 200)));
+        store.close();
+
+        assertMaxIds(open(file, 1_000_000), "order", 200, "user", 7);
+    }
+
+    @Test
+    void failedAppendIsTruncatedSoLaterRecordsSurviveRestart() throws IOException {
+        Path file = dir.resolve("id-store.log");
+        FileIdStore store = open(file, 1_000_000);
+        store.write(List.of(row("order", 100)));
+        long committed = Files.size(file);
+
+        // 模拟磁盘满：写入 5 个字节后失败
+        FileChannel channel = (FileChannel) ReflectionTestUtils.getField(store, "channel");
+        ReflectionTestUtils.setField(store, "channel", new FailingChannel(channel, 5));
+        assertThrows(UncheckedIOException.class, () -> store.write(List.of(row("order", 150), row("user", 9))));
+        assertEquals(committed, Files.size(file));
+
+        // 恢复后继续追加，重启时不能因为残缺记录丢掉这条
+        ReflectionTestUtils.setField(store, "channel", channel);
+        store.write(List.of(row("order", 300)));
+        store.close();
+
+        assertMaxIds(open(file, 1_000_000), "order", 300, "user", 0);
+    }
+
+    @Test
+    void compactionKeepsLatestValueAndStoreWritable() throws IOException {
+        Path file = dir.resolve("id-store.log");
+        FileIdStore store = open(file, 4);
+        for (int i = 1; i <= 10; i++) {
+            store.write(List.of(row("order", i), row("tag-" + i, i)));
+        }
+        store.write(List.of(row("order", 11)));
+        store.close();
+
+        FileIdStore reopened = open(file, 4);
+        assertMaxIds(reopened, "order", 11, "tag-10", 10);
+    }
+
+    private static FileIdStore open(Path file, long compactThreshold) throws IOException {
+        IdServerProperties properties = new IdServerProperties();
+        properties.getStore().setType("file");
+        properties.getStore().getFile().setPath(file.toString());
+        properties.getStore().getFile().setCompactThreshold(compactThreshold);
+        FileIdStore store = new FileIdStore();
+        ReflectionTestUtils.setField(store, "properties", properties);
+        store.init();
+        return store;
+    }
+
+    private static IdGeneratorEntity row(String tag, long maxId) {
+        IdGeneratorEntity entity = new IdGeneratorEntity();
+        entity.setBizTag(tag);
+        entity.setMaxId(maxId);
+        return entity;
+    }
+
+    private static void assertMaxIds(FileIdStore store, String tag1, long max1, String tag2, long max2) {
+        SequenceTable table = new SequenceTable();
+        store.load(table);
+        assertEquals(max1, table.get(tag1, 0L));
+        assertEquals(max2, table.get(tag2, 0L));
+    }
+
+    /**
+     * 写入 limit 个字节后抛出 IOException 的通道 (其余操作委托给真实通道)
+     */
+    private static final class FailingChannel extends FileChannel {
+
+        private final FileChannel delegate;
+        private int remaining;
+
+        FailingChannel(FileChannel delegate, int limit) {
+            this.delegate = delegate;
+            this.remaining = limit;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("No space left on device");
+            }
+            ByteBuffer slice = src.slice();
+            slice.limit(Math.min(slice.remaining(), remaining));
+            int n = delegate.write(slice);
+            src.position(src.position() + n);
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() {
+            // 真实通道由测试负责关闭
+        }
+    }
+}
@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+#
+# SequenceTable 基准 (SequenceTable Benchmark)
+#
+# 编译服务端测试类后运行 SequenceTableBench，对比 HashMap<String, Long> 与 SequenceTable 的吞吐 (按 Tag 数量、
+# 访问顺序与 Tag 命名) 以及每个 Tag 的堆占用，用于在改动引擎 Tag 表前后记录可对比的数字。
+#
+# 用法: scripts/bench-sequence-table.sh
+#   TAGS        Tag 数量，默认 "100 10000 1000000"
+#   ORDER       访问顺序 (round-robin: 按插入顺序轮询; random: 均匀随机)，默认 "round-robin random"
+#   KEYS        Tag 命名 (sequential: order_tag_0, order_tag_1 ...; random: 随机字符串)，默认 "sequential random"
+#   OPS         每轮命令数，默认 4000000
+#   ROUNDS      轮数 (首轮预热不计入，取其余轮的中位数)，默认 8
+#   JAVA_OPTS   JVM 参数，默认 "-Xmx4g"
+#
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+SERVER="$ROOT/j-atomic-id-server"
+
+mvn -B -q -f "$ROOT/pom.xml" -pl j-atomic-id-server -am test-compile -DskipTests
+
+# shellcheck disable=SC2086
+java ${JAVA_OPTS:--Xmx4g} \
+  -Dtags="${TAGS:-100 10000 1000000}" \
+  -Dorder="${ORDER:-round-robin random}" \
+  -Dkeys="${KEYS:-sequential random}" \
+  -Dops="${OPS:-4000000}" \
+  -Drounds="${ROUNDS:-8}" \
+  -cp "$SERVER/target/classes:$SERVER/target/test-classes" \
+  io.github.vevoly.id.server.domain.SequenceTableBench
@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+#
+# 压测矩阵 (Benchmark Matrix)
+#
+# 调用示例应用的 /bench 接口 (IdBenchController)，按模式 x 并发线程数逐项压测并汇总 TPS，
+# 用于在改动号段切换 / 引擎处理路径前后记录可对比的数字。
+#
+# 前置: 服务端 (8090) 与示例应用 (j-atomic-id-example, 8091) 已启动。
+# 用法: scripts/bench.sh
+#   BENCH_URL   示例应用地址，默认 http://localhost:8091
+#   MODES       压测模式 (segment: 客户端号段; strict: 每个 ID 都访问服务端)，默认 "segment strict"
+#   THREADS     并发线程数，默认 "50 100 200"
+#   COUNT       每项请求总数，默认 1000000
+#   ROUNDS      每项轮数 (首轮预热不计入，取其余轮的中位数)，默认 5
+#
+set -euo pipefail
+
+BENCH_URL="${BENCH_URL:-http://localhost:8091}"
+MODES="${MODES:-segment strict}"
+THREADS="${THREADS:-50 100 200}"
+COUNT="${COUNT:-1000000}"
+ROUNDS="${ROUNDS:-5}"
+((ROUNDS >= 2)) || ROUNDS=2
+
+echo "cpus=$(nproc 2>/dev/null || echo ?) count=$COUNT rounds=$ROUNDS url=$BENCH_URL"
+printf '%-8s %8s %12s %12s %12s\n' mode threads median min max
+for mode in $MODES; do
+  for threads in $THREADS; do
+    results=()
+    for ((round = 0; round < ROUNDS; round++)); do
+      tps="$(curl -sf "$BENCH_URL/bench?mode=$mode&count=$COUNT&threads=$threads" | awk '/TPS:/ {print $2}')"
+      [[ -n "$tps" ]] || { echo "FAIL: /bench returned no TPS (mode=$mode threads=$threads)" >&2; exit 1; }
+      # 首轮预热
+      if ((round > 0)); then
+        results+=("$tps")
+      fi
+    done
+    sorted=($(printf '%s\n' "${results[@]}" | sort -n))
+    n=${#sorted[@]}
+    printf '%-8s %8s %12s %12s %12s\n' "$mode" "$threads" "${sorted[$((n / 2))]}" "${sorted[0]}" "${sorted[$((n - 1))]}"
+  done
+done
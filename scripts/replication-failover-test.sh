@@ -0,0 +1,147 @@
+#!/usr/bin/env bash
+#
+# 主从热备故障转移测试 (Replication Failover Test)
+#
+# 在本机启动两个服务端进程 (文件存储，无需 MySQL)，验证：
+#   1. 主节点重启后，新加入的从节点仍能拿到重启前已存在的 Tag (快照由引擎状态填充)
+#   2. 主节点宕机 (kill -9) 后，未指定 force 的提升因无法隔离旧主节点而被拒绝
+#   3. 强制提升后从节点在 1 秒内接管，故障前后分配的 ID 没有重复
+#   4. 被隔离的节点重启后仍拒绝申请 (隔离标记随 WAL / 快照持久化)
+#
+# 用法: scripts/replication-failover-test.sh   (需要 JDK 17、Maven、curl)
+#
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+WORK="$(mktemp -d)"
+LEADER_PORT=18090
+FOLLOWER_PORT=18091
+FENCE_PORT=18092
+PIDS=()
+
+cleanup() {
+  for pid in "${PIDS[@]}"; do kill -9 "$pid" 2>/dev/null || true; done
+  rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+fail() {
+  echo "FAIL: $*" >&2
+  exit 1
+}
+
+now_ms() {
+  date +%s%3N
+}
+
+if [[ -z "${SKIP_BUILD:-}" ]]; then
+  (cd "$ROOT" && mvn -B -q -DskipTests package)
+fi
+JAR="$(ls "$ROOT"/j-atomic-id-server/target/j-atomic-id-server-*.jar | grep -v original | head -1)"
+
+# start_node <name> <port> <role> [extra args...]: 后台启动节点，PID 写入 NODE_PID
+start_node() {
+  local name=$1 port=$2 role=$3
+  shift 3
+  mkdir -p "$WORK/$name"
+  java -jar "$JAR" \
+    --server.port="$port" \
+    --j-atomic-ledger.base-dir="$WORK/$name/ledger" \
+    --j-atomic-id.server.store.type=file \
+    --j-atomic-id.server.store.file.path="$WORK/$name/store/id-store.log" \
+    --j-atomic-id.server.auth.enabled=false \
+    --j-atomic-id.server.auth.ip-white-list= \
+    --j-atomic-id.server.replication.role="$role" \
+    --j-atomic-id.server.replication.poll-wait=200ms \
+    "$@" >>"$WORK/$name.log" 2>&1 &
+  NODE_PID=$!
+  PIDS+=("$NODE_PID")
+}
+
+wait_ready() {
+  local port=$1
+  for _ in $(seq 1 300); do
+    curl -sf "http://localhost:$port/cluster/replication/status" >/dev/null 2>&1 && return 0
+    sleep 0.1
+  done
+  fail "node on port $port did not start"
+}
+
+# alloc <port> <tag> <count>: 成功时输出 "minId maxId"，失败时输出 "ERR <code>"
+alloc() {
+  local body
+  body=$(curl -s -m 2 -X POST -H 'Accept: application/json' \
+    "http://localhost:$1/id/alloc?tag=$2&count=$3" 2>/dev/null) || { echo "ERR down"; return; }
+  if [[ "$body" == *'"success":true'* ]]; then
+    echo "$(sed -E 's/.*"minId":([0-9]+).*/\1/' <<<"$body") $(sed -E 's/.*"maxId":([0-9]+).*/\1/' <<<"$body")"
+  else
+    echo "ERR $(sed -E 's/.*"code":([0-9]+).*/\1/' <<<"$body")"
+  fi
+}
+
+echo ">>> 1. 主节点分配后重启，再启动从节点"
+start_node leader $LEADER_PORT LEADER
+LEADER_PID=$NODE_PID
+wait_ready $LEADER_PORT
+read -r _ WARM_MAX < <(alloc $LEADER_PORT warm 1000)
+[[ "$WARM_MAX" =~ ^[0-9]+$ ]] || fail "warm alloc failed"
+# 等待快照 / WAL 落盘后重启
+sleep 1
+kill "$LEADER_PID"; wait "$LEADER_PID" 2>/dev/null || true
+start_node leader $LEADER_PORT LEADER
+LEADER_PID=$NODE_PID
+wait_ready $LEADER_PORT
+start_node follower $FOLLOWER_PORT FOLLOWER \
+  --j-atomic-id.server.replication.leader-url="http://localhost:$LEADER_PORT"
+wait_ready $FOLLOWER_PORT
+
+echo ">>> 2. 持续分配，期间 kill -9 主节点"
+IDS="$WORK/ids.txt"
+: >"$IDS"
+for i in $(seq 1 200); do
+  read -r min max < <(alloc $LEADER_PORT "load-$((i % 4))" 10)
+  [[ "$min" == ERR ]] && fail "alloc on leader failed: $max"
+  echo "load-$((i % 4)) $min $max" >>"$IDS"
+done
+KILL_AT=$(now_ms)
+kill -9 "$LEADER_PID"
+
+status=$(curl -s -o /dev/null -w '%{http_code}' -X POST "http://localhost:$FOLLOWER_PORT/cluster/replication/promote")
+[[ "$status" == 200 ]] && fail "promotion without force succeeded while the old leader could not be fenced"
+curl -sf -X POST "http://localhost:$FOLLOWER_PORT/cluster/replication/promote?force=true" >/dev/null \
+  || fail "forced promotion failed"
+
+FIRST_OK=""
+for i in $(seq 1 200); do
+  read -r min max < <(alloc $FOLLOWER_PORT "load-$((i % 4))" 10)
+  if [[ "$min" == ERR ]]; then
+    [[ -n "$FIRST_OK" ]] && fail "alloc on new leader failed: $max"
+    continue
+  fi
+  [[ -z "$FIRST_OK" ]] && FIRST_OK=$(now_ms)
+  echo "load-$((i % 4)) $min $max" >>"$IDS"
+done
+[[ -n "$FIRST_OK" ]] || fail "new leader never served"
+FAILOVER_MS=$((FIRST_OK - KILL_AT))
+echo "    failover: ${FAILOVER_MS} ms"
+((FAILOVER_MS < 1000)) || fail "failover took ${FAILOVER_MS} ms"
+
+echo ">>> 3. 检查重复 ID"
+# 展开每个号段 [min, max]，同一 Tag 内不得重复
+DUP=$(awk '{ for (id = $2; id <= $3; id++) print $1, id }' "$IDS" | sort | uniq -d | head -5)
+[[ -z "$DUP" ]] || fail "duplicate ids: $DUP"
+read -r WARM_NEXT _ < <(alloc $FOLLOWER_PORT warm 1)
+((WARM_NEXT > WARM_MAX)) || fail "tag from before the leader restart restarted at $WARM_NEXT (was $WARM_MAX)"
+
+echo ">>> 4. 隔离后重启仍拒绝申请"
+start_node fenced $FENCE_PORT LEADER
+FENCE_PID=$NODE_PID
+wait_ready $FENCE_PORT
+curl -sf -X POST "http://localhost:$FENCE_PORT/cluster/replication/fence" >/dev/null || fail "fence failed"
+kill "$FENCE_PID"; wait "$FENCE_PID" 2>/dev/null || true
+start_node fenced $FENCE_PORT LEADER
+wait_ready $FENCE_PORT
+read -r code reason < <(alloc $FENCE_PORT fenced 1)
+[[ "$code" == ERR && "$reason" == 4008 ]] || fail "fenced node served after restart: $code $reason"
+
+echo "PASS (failover ${FAILOVER_MS} ms, $(wc -l <"$IDS") segments, no duplicates)"